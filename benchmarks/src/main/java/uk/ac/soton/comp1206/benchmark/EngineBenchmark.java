@@ -0,0 +1,77 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.SeededPieceSource;
+
+/**
+ * Benchmarks of the engine's handling of a move: clearing lines, scoring and levelling
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+    /**
+     * The width and height of the board
+     */
+    @Param({"5", "8", "16", "64"})
+    public int size;
+
+    private GameEngine engine;
+    private Grid grid;
+    private int next = 0;
+
+    /**
+     * Create an engine with an empty board
+     */
+    @Setup
+    public void setup() {
+        Configurator.setRootLevel(Level.WARN);
+        engine = new GameEngine(size, size, new SeededPieceSource(1206));
+        engine.start();
+        grid = engine.getGrid();
+    }
+
+    /**
+     * Handle a move which clears nothing
+     * @return the score
+     */
+    @Benchmark
+    public int afterPieceNoClear() {
+        var i = next++;
+        engine.afterPiece(i % size, (i / size) % size);
+        return engine.getScore();
+    }
+
+    /**
+     * Fill a row and handle the move which filled it, clearing it again
+     * @return the score
+     */
+    @Benchmark
+    public int afterPieceClearRow() {
+        var y = next++ % size;
+        for (int x = 0; x < size; x++) {
+            grid.set(x, y, 1);
+        }
+        engine.afterPiece(size / 2, y);
+        return engine.getScore();
+    }
+}
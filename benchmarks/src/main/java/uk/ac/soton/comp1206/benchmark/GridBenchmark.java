@@ -0,0 +1,113 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementIndex;
+
+/**
+ * Benchmarks of the Grid placement checks and moves, on boards of different sizes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    /**
+     * The number of precomputed moves, a power of two
+     */
+    private static final int MOVES = 1024;
+
+    /**
+     * The width and height of the board
+     */
+    @Param({"5", "8", "16", "64"})
+    public int size;
+
+    private Grid grid;
+    private Grid empty;
+    private PlacementIndex index;
+    private final GamePiece[] pieces = new GamePiece[MOVES];
+    private final int[] xs = new int[MOVES];
+    private final int[] ys = new int[MOVES];
+    private int next = 0;
+
+    /**
+     * Fill a board to about 40% and pick random pieces and positions
+     */
+    @Setup
+    public void setup() {
+        Configurator.setRootLevel(Level.WARN);
+        var random = new SplittableRandom(1206);
+        grid = new Grid(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (random.nextInt(5) < 2) grid.set(x, y, 1 + random.nextInt(GamePiece.PIECES));
+            }
+        }
+        grid.commit();
+        empty = new Grid(size, size);
+        index = new PlacementIndex(size, size);
+        for (int i = 0; i < MOVES; i++) {
+            pieces[i] = GamePiece.createPiece(random.nextInt(GamePiece.PIECES), random.nextInt(GamePiece.ROTATIONS));
+            xs[i] = 1 + random.nextInt(size - 2); //every piece fits here on an empty board
+            ys[i] = 1 + random.nextInt(size - 2);
+        }
+    }
+
+    /**
+     * Check a single placement
+     * @return if the piece fits
+     */
+    @Benchmark
+    public boolean canPlayPiece() {
+        var i = next++ & (MOVES - 1);
+        return grid.canPlayPiece(pieces[i], xs[i], ys[i]);
+    }
+
+    /**
+     * Play a piece onto an empty board, then take it off again so the board stays empty
+     * @return the board
+     */
+    @Benchmark
+    public Grid playPiece() {
+        var i = next++ & (MOVES - 1);
+        var piece = pieces[i];
+        var x = xs[i];
+        var y = ys[i];
+        empty.playPiece(piece, x, y);
+        var offsets = piece.getOffsets();
+        for (int o = 0; o < offsets.length; o += 2) {
+            empty.set(x + offsets[o], y + offsets[o + 1], 0);
+        }
+        return empty;
+    }
+
+    /**
+     * Find every legal placement of a piece in all rotations
+     * @return the placements
+     */
+    @Benchmark
+    public PlacementIndex legalPlacements() {
+        var i = next++ & (MOVES - 1);
+        grid.legalPlacements(pieces[i].getPiece(), index);
+        return index;
+    }
+}
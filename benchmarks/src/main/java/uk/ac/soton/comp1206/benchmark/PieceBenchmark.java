@@ -0,0 +1,47 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Benchmarks of creating and rotating pieces
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceBenchmark {
+
+    private final GamePiece piece = GamePiece.createPiece(3);
+    private int next = 0;
+
+    /**
+     * Rotate a piece and read its blocks
+     * @return the blocks in the new rotation
+     */
+    @Benchmark
+    public int[][] rotate() {
+        piece.rotate();
+        return piece.getBlocks();
+    }
+
+    /**
+     * Create a new piece
+     * @return the piece
+     */
+    @Benchmark
+    public GamePiece createPiece() {
+        return GamePiece.createPiece(next++ % GamePiece.PIECES);
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.soton.comp1206.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.network.MessageDecoder;
+import uk.ac.soton.comp1206.network.ServerMessage;
+
+/**
+ * Benchmarks of parsing the SCORES messages a multiplayer game receives every few seconds
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoresBenchmark {
+
+    /**
+     * The number of players in the message
+     */
+    @Param({"2", "8", "32"})
+    public int players;
+
+    private String message;
+
+    /**
+     * Build a SCORES message
+     */
+    @Setup
+    public void setup() {
+        Configurator.setRootLevel(Level.WARN);
+        var builder = new StringBuilder("SCORES ");
+        for (int i = 0; i < players; i++) {
+            if (i > 0) builder.append('\n');
+            builder.append("player").append(i).append(':').append(i * 370).append(':').append(i % 4);
+        }
+        message = builder.toString();
+    }
+
+    /**
+     * Decode a received message like the communicator does
+     * @return the parsed message
+     */
+    @Benchmark
+    public ServerMessage receiveScores() {
+        return MessageDecoder.decode(message);
+    }
+}
@@ -7,6 +7,7 @@ module uk.ac.soton.comp1206 {
     requires javafx.fxml;
     requires javafx.media;
     requires org.apache.logging.log4j;
+    requires org.apache.logging.log4j.core;
     requires nv.websocket.client;
     opens uk.ac.soton.comp1206.ui to javafx.fxml;
     exports uk.ac.soton.comp1206;
@@ -18,4 +19,5 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.game;
     exports uk.ac.soton.comp1206.dataStructure;
     exports uk.ac.soton.comp1206.media;
+    exports uk.ac.soton.comp1206.simulation;
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.component.DebugOverlay;
+import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -29,11 +31,18 @@ public class App extends Application {
 
     /**
      * Start the game
+     * <p>
+     * Supported arguments: --size=N for an N x N board, --cols=N and --rows=N for any other board
+     * size, --seed=N to deal the same pieces in every single player game, --stress to have single
+     * player games play themselves as fast as possible, --game-log=FILE to save the log of each
+     * single player game so it can be replayed, --perf-log=FILE to record frame times and input
+     * latency and append their histograms to the file when each game ends or the game exits, and
+     * --block-nodes to draw the board with a node per block instead of a single canvas.
      * @param args commandline arguments
      */
     public static void main(String[] args) {
         logger.info("Starting client");
-        launch();
+        launch(args);
     }
 
     /**
@@ -57,16 +66,57 @@ public class App extends Application {
 
         //Change the width and height in this class to change the base rendering resolution for all game parts
         var gameWindow = new GameWindow(stage,width,height);
+        applyParameters(gameWindow);
 
         //Display the GameWindow
         stage.show();
     }
 
+    /**
+     * Apply the commandline arguments to the game window settings
+     * @param gameWindow the game window
+     */
+    private void applyParameters(GameWindow gameWindow) {
+        var named = getParameters().getNamed();
+        try {
+            var size = named.get("size");
+            var cols = named.getOrDefault("cols", size);
+            var rows = named.getOrDefault("rows", size);
+            if (cols != null || rows != null) {
+                gameWindow.setBoardSize(
+                    cols == null ? GameWindow.DEFAULT_BOARD_SIZE : Integer.parseInt(cols),
+                    rows == null ? GameWindow.DEFAULT_BOARD_SIZE : Integer.parseInt(rows));
+            }
+        } catch (NumberFormatException e) {
+            logger.error("Invalid board size: " + e.getMessage());
+        }
+        try {
+            var seed = named.get("seed");
+            if (seed != null) gameWindow.setSeed(Long.parseLong(seed));
+        } catch (NumberFormatException e) {
+            logger.error("Invalid seed: " + e.getMessage());
+        }
+        if (named.containsKey("perf-log")) {
+            gameWindow.setPerfLogFile(named.get("perf-log"));
+        }
+        if (named.containsKey("game-log")) {
+            gameWindow.setGameLogFile(named.get("game-log"));
+        }
+        if (getParameters().getUnnamed().contains("--stress")) {
+            gameWindow.setStressMode(true);
+        }
+        if (getParameters().getUnnamed().contains("--block-nodes")) {
+            GameBoard.setCanvasRendering(false);
+        }
+    }
+
     /**
      * Shutdown the game
      */
     public void shutdown() {
         logger.info("Shutting down");
+        //the scene is not cleaned up when the window is closed, so anything it would write is written here
+        DebugOverlay.closeAll();
         System.exit(0);
     }
 
@@ -0,0 +1,178 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A BlockAtlas holds every block sprite for one block size, rendered once into a single image: the
+ * empty block, a block of each of the colours, and the highlight and circle overlays. Painting a
+ * block is then a single image copy, with nothing to work out and nothing allocated.
+ * <p>
+ * Atlases are shared between every component drawing blocks of the same size, and must only be used
+ * on the JavaFX thread.
+ */
+public class BlockAtlas {
+
+    private static final Logger logger = LogManager.getLogger(BlockAtlas.class);
+
+    /**
+     * The tile of the highlight painted over the aimed block
+     */
+    public static final int HIGHLIGHT = GameBlock.COLOURS.length;
+
+    /**
+     * The tile of the circle painted in the middle of a piece
+     */
+    public static final int CIRCLE = HIGHLIGHT + 1;
+
+    /**
+     * The tile of the green block painted, with a fading opacity, over cleared blocks
+     */
+    public static final int FADE = CIRCLE + 1;
+
+    /**
+     * The number of tiles in an atlas. Tiles 0 to 15 are the blocks of each value, 0 being empty.
+     */
+    private static final int TILES = FADE + 1;
+
+    /**
+     * The atlases created so far, by block size
+     */
+    private static final Map<String, BlockAtlas> atlases = new HashMap<>();
+
+    private final double width;
+    private final double height;
+
+    /**
+     * The distance between the left edges of two tiles in the image
+     */
+    private final int tileWidth;
+
+    /**
+     * The image holding every tile side by side
+     */
+    private final WritableImage image;
+
+    /**
+     * Get the atlas for blocks of the given size, creating it if needed
+     * @param width the width of a block
+     * @param height the height of a block
+     * @return the atlas
+     */
+    public static BlockAtlas get(double width, double height) {
+        return atlases.computeIfAbsent(width + "x" + height, key -> new BlockAtlas(width, height));
+    }
+
+    /**
+     * Render a new atlas for blocks of the given size
+     * @param width the width of a block
+     * @param height the height of a block
+     */
+    private BlockAtlas(double width, double height) {
+        logger.info("Rendering block atlas for {} x {} blocks", width, height);
+        this.width = width;
+        this.height = height;
+        this.tileWidth = (int) Math.ceil(width);
+
+        var canvas = new Canvas(tileWidth * TILES, Math.ceil(height));
+        var gc = canvas.getGraphicsContext2D();
+        for (int value = 0; value < GameBlock.COLOURS.length; value++) {
+            paintBlockTile(gc, value, value == 0 ? null : GameBlock.COLOURS[value]);
+        }
+        paintBlockTile(gc, FADE, Color.LIME);
+        GameBlock.paintHighlight(gc, HIGHLIGHT * tileWidth, 0, width, height);
+        GameBlock.paintCircle(gc, CIRCLE * tileWidth, 0, width, height);
+
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        image = canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Paint a block tile into the atlas, clipped to its own block just like a block canvas
+     * @param gc the graphics context of the atlas
+     * @param tile the tile
+     * @param colour the colour of the block, or null for an empty block
+     */
+    private void paintBlockTile(GraphicsContext gc, int tile, Color colour) {
+        var x = tile * tileWidth;
+        gc.save();
+        gc.beginPath();
+        gc.rect(x, 0, width, height);
+        gc.clip();
+        if (colour == null) {
+            GameBlock.paintEmpty(gc, x, 0, width, height);
+        } else {
+            GameBlock.paintColor(gc, colour, x, 0, width, height);
+        }
+        gc.restore();
+    }
+
+    /**
+     * Paint a block, replacing whatever was there
+     * @param gc the graphics context to paint on
+     * @param value the value of the block, 0 being empty
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     */
+    public void paint(GraphicsContext gc, int value, double x, double y) {
+        gc.clearRect(x, y, width, height);
+        draw(gc, value, x, y);
+    }
+
+    /**
+     * Draw a tile over whatever is already there
+     * @param gc the graphics context to paint on
+     * @param tile the tile, a block value or one of the overlays
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     */
+    public void draw(GraphicsContext gc, int tile, double x, double y) {
+        gc.drawImage(image, tile * tileWidth, 0, width, height, x, y, width, height);
+    }
+
+    /**
+     * Paint a cleared block part way through fading out: an empty block with the green fade tile
+     * over it at the given opacity
+     * @param gc the graphics context to paint on
+     * @param opacity the opacity of the green
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     */
+    public void paintFade(GraphicsContext gc, double opacity, double x, double y) {
+        paint(gc, 0, x, y);
+        gc.setGlobalAlpha(opacity);
+        draw(gc, FADE, x, y);
+        gc.setGlobalAlpha(1);
+    }
+
+    /**
+     * Create a node showing a single tile, which can be moved around instead of repainting
+     * @param tile the tile, a block value or one of the overlays
+     * @return a new image view of the tile
+     */
+    public ImageView createSprite(int tile) {
+        var sprite = new ImageView(image);
+        sprite.setViewport(new Rectangle2D(tile * tileWidth, 0, width, height));
+        sprite.setFitWidth(width);
+        sprite.setFitHeight(height);
+        return sprite;
+    }
+
+    /**
+     * Get the image holding every tile
+     * @return the atlas image
+     */
+    public WritableImage getImage() {
+        return image;
+    }
+}
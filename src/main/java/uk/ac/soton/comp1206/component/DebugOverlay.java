@@ -0,0 +1,213 @@
+package uk.ac.soton.comp1206.component;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.dataStructure.LatencyHistogram;
+
+/**
+ * The DebugOverlay shows how well the game is rendering: the time between frames, the number of
+ * nodes in the scene and the latency from an input to the layout pass which shows its result.
+ * <p>
+ * Measuring only starts when the overlay is shown or a dump file is set, and the histograms can be
+ * written to that file when the scene is left, or by {@link #closeAll()} when the game exits.
+ */
+public class DebugOverlay extends StackPane {
+
+    private static final Logger logger = LogManager.getLogger(DebugOverlay.class);
+
+    /**
+     * How often the text is updated, in nanoseconds
+     */
+    private static final long UPDATE_INTERVAL = 250_000_000L;
+
+    /**
+     * The overlays with a dump file which have not been closed yet. Only used on the JavaFX thread.
+     */
+    private static final List<DebugOverlay> unwritten = new ArrayList<>();
+
+    private final LatencyHistogram frameTimes = new LatencyHistogram("frame time");
+    private final LatencyHistogram inputLatency = new LatencyHistogram("input latency");
+    private final Text text = new Text();
+    private final Runnable pulseListener = this::afterLayout;
+    private final AnimationTimer frameTimer;
+
+    private Scene scene;
+    private String dumpFile;
+    private boolean recording = false;
+    private long lastFrame = 0;
+    private long lastUpdate = 0;
+
+    /**
+     * The time of the input waiting to be shown, or 0 if there is none
+     */
+    private long pendingInput = 0;
+
+    /**
+     * Create a new hidden overlay
+     */
+    public DebugOverlay() {
+        getStyleClass().add("debug-overlay");
+        text.getStyleClass().add("debug-text");
+        getChildren().add(text);
+        setAlignment(Pos.TOP_LEFT);
+        setMouseTransparent(true);
+        setVisible(false);
+
+        frameTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                frame(now);
+            }
+        };
+    }
+
+    /**
+     * Attach the overlay to the scene it measures
+     * @param scene the scene
+     * @param dumpFile the file to write the histograms to when the overlay is closed, or null. If
+     *                 set, measuring starts straight away.
+     */
+    public void attach(Scene scene, String dumpFile) {
+        this.scene = scene;
+        this.dumpFile = dumpFile;
+        if (dumpFile != null) {
+            unwritten.add(this);
+            startRecording();
+        }
+    }
+
+    /**
+     * Close every overlay whose histograms have not been written yet, so they are written before
+     * the game exits. Called on the JavaFX thread.
+     */
+    public static void closeAll() {
+        for (var overlay : List.copyOf(unwritten)) {
+            overlay.close();
+        }
+    }
+
+    /**
+     * Show or hide the overlay
+     */
+    public void toggle() {
+        setVisible(!isVisible());
+        logger.info("Debug overlay {}", isVisible() ? "shown" : "hidden");
+        if (isVisible()) {
+            startRecording();
+        } else if (dumpFile == null) {
+            stopRecording();
+        }
+    }
+
+    /**
+     * Mark that an input has been received, so the latency to the next layout can be measured
+     */
+    public void inputReceived() {
+        if (recording) pendingInput = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring and write the histograms to the dump file, if there is one
+     */
+    public void close() {
+        stopRecording();
+        if (dumpFile == null) return;
+        var file = dumpFile;
+        dumpFile = null; //only write them once
+        unwritten.remove(this);
+        try (var out = new PrintWriter(new FileWriter(file, true))) {
+            out.printf("%s%n", LocalDateTime.now());
+            frameTimes.writeTo(out);
+            inputLatency.writeTo(out);
+            out.println();
+            logger.info("Wrote performance histograms to {}", file);
+        } catch (IOException e) {
+            logger.error("Unable to write performance histograms: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start measuring
+     */
+    private void startRecording() {
+        if (recording || scene == null) return;
+        recording = true;
+        lastFrame = 0;
+        frameTimer.start();
+        scene.addPostLayoutPulseListener(pulseListener);
+    }
+
+    /**
+     * Stop measuring
+     */
+    private void stopRecording() {
+        if (!recording) return;
+        recording = false;
+        pendingInput = 0;
+        frameTimer.stop();
+        scene.removePostLayoutPulseListener(pulseListener);
+    }
+
+    /**
+     * Record the time since the last frame and update the text now and then
+     * @param now the time of this frame in nanoseconds
+     */
+    private void frame(long now) {
+        if (lastFrame != 0) frameTimes.record(now - lastFrame);
+        lastFrame = now;
+        if (isVisible() && now - lastUpdate >= UPDATE_INTERVAL) {
+            lastUpdate = now;
+            updateText();
+        }
+    }
+
+    /**
+     * Record the latency of the input waiting to be shown, once the layout showing it has run
+     */
+    private void afterLayout() {
+        if (pendingInput == 0) return;
+        inputLatency.record(System.nanoTime() - pendingInput);
+        pendingInput = 0;
+    }
+
+    /**
+     * Show the latest figures
+     */
+    private void updateText() {
+        var frameMean = frameTimes.getMean();
+        text.setText(String.format(
+            "fps %.0f%nframe p50 %.1fms  p99 %.1fms  max %.1fms%ninput p50 %.1fms  p99 %.1fms%nnodes %d",
+            frameMean == 0 ? 0 : 1e9 / frameMean,
+            frameTimes.percentile(0.5) / 1e6, frameTimes.percentile(0.99) / 1e6, frameTimes.getMax() / 1e6,
+            inputLatency.percentile(0.5) / 1e6, inputLatency.percentile(0.99) / 1e6,
+            countNodes(scene.getRoot())));
+    }
+
+    /**
+     * Count the nodes in a scene graph
+     * @param node the root of the graph
+     * @return the number of nodes
+     */
+    private static int countNodes(Node node) {
+        var count = 1;
+        if (node instanceof Parent parent) {
+            for (var child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
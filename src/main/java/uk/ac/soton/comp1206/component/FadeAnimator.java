@@ -0,0 +1,99 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.Arrays;
+import javafx.animation.AnimationTimer;
+
+/**
+ * The FadeAnimator runs every block fade-out of a GameBoard from a single pulse handler.
+ * <p>
+ * The fading blocks are kept in primitive arrays and their progress is worked out from the time
+ * since they started, so a fade takes the same time at any frame rate and each frame costs the same
+ * however many lines were cleared. The animator stops itself when nothing is fading.
+ */
+class FadeAnimator extends AnimationTimer {
+
+    /**
+     * How long a fade takes, in nanoseconds
+     */
+    static final long DURATION = 600_000_000L;
+
+    /**
+     * The opacity of the green at the end of a fade
+     */
+    private static final double END_OPACITY = 0.1;
+
+    private final GameBoard board;
+
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+
+    /**
+     * The time each fade started, or -1 if it starts on the next pulse
+     */
+    private long[] starts = new long[16];
+
+    private int count = 0;
+    private boolean running = false;
+
+    /**
+     * Create a new animator for a board
+     * @param board the board to paint the fades on
+     */
+    FadeAnimator(GameBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Start fading a block out, restarting its fade if it is already fading
+     * @param x column
+     * @param y row
+     */
+    void fade(int x, int y) {
+        for (int i = 0; i < count; i++) {
+            if (xs[i] == x && ys[i] == y) {
+                starts[i] = -1;
+                return;
+            }
+        }
+        if (count == xs.length) {
+            xs = Arrays.copyOf(xs, count * 2);
+            ys = Arrays.copyOf(ys, count * 2);
+            starts = Arrays.copyOf(starts, count * 2);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        starts[count] = -1;
+        count++;
+        if (!running) {
+            running = true;
+            start();
+        }
+    }
+
+    /**
+     * Paint the next frame of every fade, finishing the ones which are done
+     * @param now the time of this frame in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        var i = 0;
+        while (i < count) {
+            if (starts[i] < 0) starts[i] = now;
+            var progress = (double) (now - starts[i]) / DURATION;
+            if (progress >= 1 || !board.paintFade(xs[i], ys[i], 1 - progress * (1 - END_OPACITY))) {
+                board.repaintBlock(xs[i], ys[i]);
+                //remove by moving the last fade into this slot
+                count--;
+                xs[i] = xs[count];
+                ys[i] = ys[count];
+                starts[i] = starts[count];
+            } else {
+                i++;
+            }
+        }
+        if (count == 0) {
+            running = false;
+            stop();
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.AnimationTimer;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,11 +44,31 @@ public class GameBlock extends Canvas {
             Color.PURPLE
     };
 
+    /**
+     * The fill of an empty block
+     */
+    private static final Color EMPTY_COLOUR = Color.color(1, 1, 1, 0.1);
+
+    /**
+     * The highlight painted over the aimed block
+     */
+    private static final Color HIGHLIGHT_COLOUR = new Color(1, 1, 1, 0.3);
+
+    /**
+     * The circle painted in the middle of a piece
+     */
+    private static final Color CIRCLE_COLOUR = new Color(1, 1, 1, 0.7);
+
     private final GameBoard gameBoard;
 
     private final double width;
     private final double height;
 
+    /**
+     * The sprites of blocks of this size
+     */
+    private final BlockAtlas atlas;
+
     /**
      * The column this block exists as in the grid
      */
@@ -76,6 +96,7 @@ public class GameBlock extends Canvas {
         this.gameBoard = gameBoard;
         this.width = width;
         this.height = height;
+        this.atlas = BlockAtlas.get(width, height);
         this.x = x;
         this.y = y;
 
@@ -101,62 +122,82 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Handle painting of the block canvas
+     * Handle painting of the block canvas, with the sprite of its value
      */
     public void paint() {
-        //If the block is empty, paint as empty
-        if(value.get() == 0) {
-            paintEmpty();
-        } else {
-            //If the block is not empty, paint with the colour represented by the value
-            paintColor(COLOURS[value.get()]);
-        }
+        atlas.paint(getGraphicsContext2D(), value.get(), 0, 0);
     }
 
     /**
-     * Paint this canvas empty
+     * Paint an empty block. Used to render the block atlases.
+     * @param gc the graphics context to paint on
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     * @param width the width of the block
+     * @param height the height of the block
      */
-    private void paintEmpty() {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0,0,width,height);
-
+    static void paintEmpty(GraphicsContext gc, double x, double y, double width, double height) {
         //Fill
-        Color translucentBlack = Color.color(1,1,1, 0.1);
-        gc.setFill(translucentBlack);
-        gc.fillRect(0,0, width, height);
+        gc.setFill(EMPTY_COLOUR);
+        gc.fillRect(x, y, width, height);
 
         //Border
         gc.setStroke(Color.BLACK);
-        gc.strokeRect(0,0,width,height);
+        gc.strokeRect(x, y, width, height);
     }
 
     /**
-     * Paint this canvas with the given colour
+     * Paint a block with the given colour. Used to render the block atlases.
+     * @param gc the graphics context to paint on
      * @param colour the colour to paint
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     * @param width the width of the block
+     * @param height the height of the block
      */
-    private void paintColor(Color colour) {
-        var gc = getGraphicsContext2D();
-        //Clear
-        gc.clearRect(0,0,width,height);
-
+    static void paintColor(GraphicsContext gc, Color colour, double x, double y, double width, double height) {
         //Colour fill
         gc.setFill(colour.darker());
-        gc.fillRect(0,0, width, height);
-        
+        gc.fillRect(x, y, width, height);
+
         //Inner Block
         gc.setFill(colour.invert().darker().invert());
-        gc.fillRect(width/8, height/8, width/4*3, height/4*3);
-        
+        gc.fillRect(x + width/8, y + height/8, width/4*3, height/4*3);
+
         //Triangle Pattern
         gc.setFill(colour);
-        gc.fillPolygon(new double[]{width/8, width/8, width/8*7},
-            new double[]{height/8, height/8*7, height/8*7}, 3);
+        gc.fillPolygon(new double[]{x + width/8, x + width/8, x + width/8*7},
+            new double[]{y + height/8, y + height/8*7, y + height/8*7}, 3);
 
         //Border
         gc.setStroke(Color.BLACK);
-        gc.strokeRect(0,0,width,height);
+        gc.strokeRect(x, y, width, height);
+    }
+
+    /**
+     * Paint the highlight of an aimed block over it. Used to render the block atlases.
+     * @param gc the graphics context to paint on
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     * @param width the width of the block
+     * @param height the height of the block
+     */
+    static void paintHighlight(GraphicsContext gc, double x, double y, double width, double height) {
+        gc.setFill(HIGHLIGHT_COLOUR);
+        gc.fillRect(x, y, width, height);
+    }
+
+    /**
+     * Paint a circle in the middle of a block. Used to render the block atlases.
+     * @param gc the graphics context to paint on
+     * @param x the left edge of the block
+     * @param y the top edge of the block
+     * @param width the width of the block
+     * @param height the height of the block
+     */
+    static void paintCircle(GraphicsContext gc, double x, double y, double width, double height) {
+        gc.setFill(CIRCLE_COLOUR);
+        gc.fillOval(x + width/4, y + height/4, width/2, height/2);
     }
 
     /**
@@ -191,53 +232,19 @@ public class GameBlock extends Canvas {
         value.bind(input);
     }
     
-    /**
-     * Method to highlight a block
-     */
-    public void highlightBlock() {
-        var highlightColor = new Color(1, 1, 1, 0.3);
-        var gc = getGraphicsContext2D();
-    
-        //Draw the highlight
-        gc.setFill(highlightColor);
-        gc.fillRect(0, 0, width, height);
-    }
-    
     /**
      * Method to paint a circle highlight in the middle of the block
      */
     public void paintCircle() {
-        var circleColor = new Color(1, 1, 1, 0.7);
-        var gc = getGraphicsContext2D();
-        
-        //Draw the circle
-        gc.setFill(circleColor);
-        gc.fillOval(width/4, height/4, width/2, height/2);
+        atlas.draw(getGraphicsContext2D(), BlockAtlas.CIRCLE, 0, 0);
     }
     
     /**
-     * Method to fade out a block
-     * paints the block empty then paints it green and gradually reduces the opacity
-     */
-    public void fadeOut() {
-        paintEmpty();
-        //implements an Animation timer which paints the block green
-        // slowly reduces the opacity of the green until it is transparent
-        AnimationTimer timer = new AnimationTimer() {
-            float opacity = 1;
-            @Override
-            public void handle(long now) {
-                if (opacity <= 0.1) {
-                    stop();
-                    paintEmpty();
-                } else {
-                    var green = new Color(0, 1, 0, opacity);
-                    paintColor(green);
-                    opacity -= 0.025;
-                }
-            }
-        };
-        timer.start();
+     * Paint this block part way through fading out
+     * @param opacity the opacity of the green painted over the empty block
+     */
+    public void paintFade(double opacity) {
+        atlas.paintFade(getGraphicsContext2D(), opacity, 0, 0);
     }
 
 }
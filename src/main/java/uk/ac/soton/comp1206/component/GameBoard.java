@@ -1,18 +1,32 @@
 package uk.ac.soton.comp1206.component;
 
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.BlockClickedListener;
 import uk.ac.soton.comp1206.event.MouseHoverListener;
 import uk.ac.soton.comp1206.event.RightClickedListener;
+import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.GridBinding;
+import uk.ac.soton.comp1206.game.PlacementIndex;
 
 /**
  * A GameBoard is a visual component to represent the visual GameBoard.
- * It extends a GridPane to hold a grid of GameBlocks.
+ * It extends a GridPane and draws the whole board on a single Canvas, working out which block the
+ * mouse is on from its coordinates and repainting only the blocks changed by each committed move.
+ * The aim is a highlight sprite in a layer above the blocks, which is only ever moved, so aiming
+ * never repaints any blocks. A ghost of the current piece can be shown in the same layer, coloured by
+ * whether it can be played at the aim.
+ * The old renderer, which holds a grid of GameBlock nodes, one Canvas per block, can still be
+ * chosen with {@link #setCanvasRendering(boolean)}.
  *
  * The GameBoard can hold an internal grid of it's own, for example, for displaying an upcoming block. It also be
  * linked to an external grid, for the main game board.
@@ -24,6 +38,21 @@ public class GameBoard extends GridPane {
 
     private static final Logger logger = LogManager.getLogger(GameBoard.class);
 
+    /**
+     * Whether new boards draw themselves on a single canvas rather than a node per block
+     */
+    private static boolean canvasRendering = true;
+
+    /**
+     * The opacity of the ghost piece when it can be played at the aim
+     */
+    private static final double GHOST_OPACITY = 0.5;
+
+    /**
+     * The colour of the ghost piece when it cannot be played at the aim
+     */
+    private static final Color GHOST_BLOCKED = Color.RED;
+
     /**
      * Number of columns in the board
      */
@@ -50,14 +79,103 @@ public class GameBoard extends GridPane {
     final Grid grid;
 
     /**
-     * The blocks inside the grid
+     * The bindable view of the grid, synced whenever the grid commits a move. Only used when the
+     * board is made of GameBlock nodes.
+     */
+    private GridBinding binding;
+
+    /**
+     * The blocks inside the grid, or null when the board is drawn on a single canvas
      */
     protected GameBlock[][] blocks;
+
+    /**
+     * The canvas the whole board is drawn on, or null when the board is made of GameBlock nodes
+     */
+    private Canvas canvas;
+
+    /**
+     * The width of a block
+     */
+    protected final double blockWidth;
+
+    /**
+     * The height of a block
+     */
+    protected final double blockHeight;
+
+    /**
+     * The sprites of blocks of this board's size
+     */
+    private BlockAtlas atlas;
+
+    /**
+     * Runs the fade-out of every cleared block
+     */
+    private final FadeAnimator fadeAnimator = new FadeAnimator(this);
+
+    /**
+     * The coordinates of every block, created once so events do not allocate
+     */
+    private GameBlockCoordinate[][] coordinates;
     
     /**
      * The block the aim is currently set on
      */
-    private GameBlock aimedBlock;
+    private GameBlockCoordinate aimedBlock;
+
+    /**
+     * The highlight sprite over the aimed block, created when the board is first aimed at
+     */
+    private ImageView aimSprite;
+
+    /**
+     * Moves the aim sprite to the aimed block on the next pulse, so any number of aim changes in a
+     * frame only move it once
+     */
+    private final AnimationTimer aimUpdater = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop();
+            if (aimSprite != null) {
+                aimSprite.setLayoutX(aimedBlock.getX() * blockWidth);
+                aimSprite.setLayoutY(aimedBlock.getY() * blockHeight);
+                aimSprite.setVisible(true);
+            }
+            updateGhost();
+        }
+    };
+
+    /**
+     * The piece shown as a ghost at the aim, or null if there is no ghost
+     */
+    private GamePiece ghostPiece;
+
+    /**
+     * Where the ghost piece can be played, in every rotation
+     */
+    private PlacementIndex ghostPlacements;
+
+    /**
+     * Whether the grid or the ghost piece has changed since the placements were worked out
+     */
+    private boolean ghostStale;
+
+    /**
+     * The 3x3 block canvas the ghost piece is drawn on, moved with the aim
+     */
+    private Canvas ghostSprite;
+
+    /**
+     * What the ghost sprite currently shows: the piece value, rotation and whether it is legal,
+     * so it is only redrawn when one of them changes
+     */
+    private int ghostDrawn = -1;
+
+    /**
+     * The block the mouse is currently over, or null if it is not over the board
+     */
+    private GameBlockCoordinate hoveredBlock;
 
     /**
      * The listener to call when a specific block is clicked
@@ -85,6 +203,8 @@ public class GameBoard extends GridPane {
         this.rows = grid.getRows();
         this.width = width;
         this.height = height;
+        this.blockWidth = width / cols;
+        this.blockHeight = height / rows;
         this.grid = grid;
 
         //Build the GameBoard
@@ -105,24 +225,48 @@ public class GameBoard extends GridPane {
         this.rows = rows;
         this.width = width;
         this.height = height;
+        this.blockWidth = width / cols;
+        this.blockHeight = height / rows;
         this.grid = new Grid(cols,rows);
 
         //Build the GameBoard
         build();
     }
 
+    /**
+     * Set whether boards created from now on draw themselves on a single canvas, rather than
+     * holding a GameBlock node for every block
+     * @param canvas if boards should use a single canvas
+     */
+    public static void setCanvasRendering(boolean canvas) {
+        logger.info("Canvas rendering set to {}", canvas);
+        canvasRendering = canvas;
+    }
+
     /**
      * Get a specific block from the GameBoard, specified by it's row and column
      * @param x column
      * @param y row
-     * @return game block at the given column and row
+     * @return game block at the given column and row, or null when the board is drawn on a single
+     * canvas
      */
     public GameBlock getBlock(int x, int y) {
-        return blocks[x][y];
+        return blocks == null ? null : blocks[x][y];
+    }
+
+    /**
+     * Get the coordinate of a block
+     * @param x column
+     * @param y row
+     * @return the coordinate of the block
+     */
+    public GameBlockCoordinate getCoordinate(int x, int y) {
+        return coordinates[x][y];
     }
 
     /**
-     * Build the GameBoard by creating a block at every x and y column and row
+     * Build the GameBoard by creating a block at every x and y column and row, or a single canvas
+     * for the whole board
      */
     protected void build() {
         logger.info("Building grid: {} x {}",cols,rows);
@@ -130,18 +274,143 @@ public class GameBoard extends GridPane {
         setMaxWidth(width);
         setMaxHeight(height);
 
+        coordinates = new GameBlockCoordinate[cols][rows];
+        for (var x = 0; x < cols; x++) {
+            for (var y = 0; y < rows; y++) {
+                coordinates[x][y] = new GameBlockCoordinate(x, y);
+            }
+        }
+
+        atlas = BlockAtlas.get(blockWidth, blockHeight);
+        if (canvasRendering) {
+            buildCanvas();
+        } else {
+            buildBlocks();
+        }
+
+        //Setting the aim at the top left
+        aimedBlock = coordinates[0][0];
+    }
+
+    /**
+     * Build the board as a GameBlock node for every block
+     */
+    private void buildBlocks() {
         setGridLinesVisible(true);
 
+        binding = new GridBinding(grid);
         blocks = new GameBlock[cols][rows];
+        grid.setOnCommit(this::gridCommitted);
 
         for(var y = 0; y < rows; y++) {
             for (var x = 0; x < cols; x++) {
                 createBlock(x,y);
             }
         }
-        
-        //Setting the aim at the top left
-        aimedBlock = blocks[0][0];
+    }
+
+    /**
+     * Build the board as a single canvas, repainted whenever the grid commits a move
+     */
+    private void buildCanvas() {
+        canvas = new Canvas(width, height);
+        add(canvas, 0, 0);
+
+        //Draw everything once, then only what each move changes
+        for (var y = 0; y < rows; y++) {
+            for (var x = 0; x < cols; x++) {
+                paintBlock(x, y);
+            }
+        }
+        grid.setOnCommit(this::gridCommitted);
+
+        //Work out which block the mouse is on from its position
+        canvas.setOnMouseClicked((e) -> {
+            var block = blockAt(e.getX(), e.getY());
+            if (block != null) blockClicked(e, block);
+        });
+        canvas.setOnMouseMoved((e) -> {
+            var block = blockAt(e.getX(), e.getY());
+            if (block == null || block == hoveredBlock) return;
+            hoveredBlock = block;
+            if (mouseHoverListener != null) {
+                mouseHoverListener.mouseHover(block);
+            }
+        });
+        canvas.setOnMouseExited((e) -> hoveredBlock = null);
+    }
+
+    /**
+     * Get the block at a position on the canvas
+     * @param x the x position
+     * @param y the y position
+     * @return the block, or null if the position is outside the board
+     */
+    private GameBlockCoordinate blockAt(double x, double y) {
+        var col = (int) Math.floor(x / blockWidth);
+        var row = (int) Math.floor(y / blockHeight);
+        if (col < 0 || col >= cols || row < 0 || row >= rows) return null;
+        return coordinates[col][row];
+    }
+
+    /**
+     * Repaint the blocks changed by a committed move, and mark the ghost placements as stale
+     * @param grid the grid which was committed
+     */
+    private void gridCommitted(Grid grid) {
+        if (ghostPiece != null) {
+            ghostStale = true;
+            aimUpdater.start();
+        }
+        if (canvas == null) {
+            binding.sync();
+            return;
+        }
+        for (var y = 0; y < rows; y++) {
+            var row = grid.getDirtyRow(y);
+            while (row != 0) {
+                var x = Long.numberOfTrailingZeros(row);
+                row &= row - 1;
+                paintBlock(x, y);
+            }
+        }
+    }
+
+    /**
+     * Paint a block of the canvas with its value in the grid
+     * @param x column
+     * @param y row
+     */
+    private void paintBlock(int x, int y) {
+        atlas.paint(canvas.getGraphicsContext2D(), grid.get(x, y), x * blockWidth, y * blockHeight);
+    }
+
+    /**
+     * Repaint a block with its value
+     * @param x column
+     * @param y row
+     */
+    void repaintBlock(int x, int y) {
+        if (canvas == null) {
+            blocks[x][y].paint();
+        } else {
+            paintBlock(x, y);
+        }
+    }
+
+    /**
+     * Paint a circle in the middle of a block, over its value
+     * @param x column
+     * @param y row
+     */
+    public void paintCircle(int x, int y) {
+        if (canvas == null) {
+            blocks[x][y].paint();
+            blocks[x][y].paintCircle();
+        } else {
+            paintBlock(x, y);
+            atlas.draw(canvas.getGraphicsContext2D(), BlockAtlas.CIRCLE, x * blockWidth, y * blockHeight);
+        }
     }
 
     /**
@@ -151,9 +420,6 @@ public class GameBoard extends GridPane {
      * @return The GameBlock created
      */
     protected GameBlock createBlock(int x, int y) {
-        var blockWidth = width / cols;
-        var blockHeight = height / rows;
-
         //Create a new GameBlock UI component
         GameBlock block = new GameBlock(this, x, y, blockWidth, blockHeight);
 
@@ -164,15 +430,16 @@ public class GameBoard extends GridPane {
         blocks[x][y] = block;
 
         //Link the GameBlock component to the corresponding value in the Grid
-        block.bind(grid.getGridProperty(x,y));
+        block.bind(binding.getGridProperty(x,y));
 
         //Add a mouse click handler to the block to trigger GameBoard blockClicked method
-        block.setOnMouseClicked((e) -> blockClicked(e, block));
+        var coordinate = coordinates[x][y];
+        block.setOnMouseClicked((e) -> blockClicked(e, coordinate));
         
         //Events which get triggered when the mouse enters a game block
         block.setOnMouseEntered((e) -> {
             if (mouseHoverListener!=null) {
-                mouseHoverListener.mouseHover(block);
+                mouseHoverListener.mouseHover(coordinate);
             }
         });
 
@@ -200,14 +467,16 @@ public class GameBoard extends GridPane {
      * @param event mouse event
      * @param block block clicked on
      */
-    private void blockClicked(MouseEvent event, GameBlock block) {
+    private void blockClicked(MouseEvent event, GameBlockCoordinate block) {
         logger.info("Block clicked: {}", block);
         if (event.getButton() == MouseButton.PRIMARY) {
             if (blockClickedListener != null) {
                 blockClickedListener.blockClicked(block);
             }
         } else if (event.getButton() == MouseButton.SECONDARY) {
-            rightClickedListener.rightClick();
+            if (rightClickedListener != null) {
+                rightClickedListener.rightClick();
+            }
         }
     }
     
@@ -215,28 +484,103 @@ public class GameBoard extends GridPane {
      * Handle event to highlight the block where the aim is at
      * @param block the block to highlight
      */
-    public void aimEnteredBlock(GameBlock block) {
-        aimExitedBlock(aimedBlock);
+    public void aimEnteredBlock(GameBlockCoordinate block) {
         aimedBlock = block;
-        block.highlightBlock();
+        if (aimSprite == null) {
+            aimSprite = atlas.createSprite(BlockAtlas.HIGHLIGHT);
+            aimSprite.setManaged(false);
+            aimSprite.setMouseTransparent(true);
+            aimSprite.setVisible(false);
+            getChildren().add(aimSprite);
+        }
+        aimUpdater.start();
     }
     
     /**
-     * Handle event to remove highlighting on the block the aim just exited
-     * @param block the block to remove highlighting
+     * Show a ghost of a piece at the aim, coloured by whether it can be played there. Where the
+     * piece can be played is only worked out again when the grid commits a move or a different
+     * piece is shown, as it covers every rotation, so moving the aim is just a lookup.
+     * @param piece the piece to show, or null to hide the ghost
      */
-    private void aimExitedBlock(GameBlock block) {
-        block.paint();
+    public void showGhost(GamePiece piece) {
+        if (piece == null) {
+            ghostPiece = null;
+            if (ghostSprite != null) ghostSprite.setVisible(false);
+            return;
+        }
+        if (ghostSprite == null) {
+            ghostSprite = new Canvas(blockWidth * 3, blockHeight * 3);
+            ghostSprite.setManaged(false);
+            ghostSprite.setMouseTransparent(true);
+            ghostPlacements = new PlacementIndex(cols, rows);
+            //Pieces hanging off the edge of the board are cut off
+            setClip(new Rectangle(width, height));
+            getChildren().add(ghostSprite);
+        }
+        if (ghostPiece == null || ghostPiece.getPiece() != piece.getPiece()) {
+            ghostStale = true;
+        }
+        ghostPiece = piece;
+        aimUpdater.start();
     }
-    
+
+    /**
+     * Move the ghost to the aim, redrawing it only if the piece, its rotation or whether it can
+     * be played there have changed
+     */
+    private void updateGhost() {
+        if (ghostPiece == null) return;
+        if (ghostStale) {
+            grid.legalPlacements(ghostPiece.getPiece(), ghostPlacements);
+            ghostStale = false;
+        }
+        var x = aimedBlock.getX();
+        var y = aimedBlock.getY();
+        var rotation = ghostPiece.getRotation();
+        var legal = ghostPlacements.isLegal(x, y, rotation);
+
+        var drawn = (ghostPiece.getValue() * GamePiece.ROTATIONS + rotation) * 2 + (legal ? 1 : 0);
+        if (drawn != ghostDrawn) {
+            ghostDrawn = drawn;
+            paintGhost(legal);
+        }
+        ghostSprite.setLayoutX((x - 1) * blockWidth);
+        ghostSprite.setLayoutY((y - 1) * blockHeight);
+        ghostSprite.setVisible(true);
+    }
+
     /**
-     * This method is used to move the 'Aimed' block by a certain offset defined by the parameters
+     * Draw the ghost piece on its sprite, in its own colour if it can be played or red if not
+     * @param legal if the piece can be played at the aim
+     */
+    private void paintGhost(boolean legal) {
+        var gc = ghostSprite.getGraphicsContext2D();
+        gc.clearRect(0, 0, ghostSprite.getWidth(), ghostSprite.getHeight());
+        gc.setGlobalAlpha(GHOST_OPACITY);
+        gc.setFill(GHOST_BLOCKED);
+        var offsets = ghostPiece.getOffsets();
+        for (int i = 0; i < offsets.length; i += 2) {
+            var blockX = (offsets[i] + 1) * blockWidth;
+            var blockY = (offsets[i + 1] + 1) * blockHeight;
+            if (legal) {
+                atlas.draw(gc, ghostPiece.getValue(), blockX, blockY);
+            } else {
+                gc.fillRect(blockX, blockY, blockWidth, blockHeight);
+            }
+        }
+        gc.setGlobalAlpha(1);
+    }
+
+    /**
+     * This method is used to move the 'Aimed' block by a certain offset defined by the parameters.
+     * The aim stops at the edges of the board.
      * @param x how much the aim is moving horizontally
      * @param y how much the aim is moving vertically
      */
     public void moveAimedBlock(int x, int y) {
-        var block = blocks[aimedBlock.getX() + x][aimedBlock.getY() + y];
-        aimEnteredBlock(block);
+        var newX = Math.max(0, Math.min(cols - 1, aimedBlock.getX() + x));
+        var newY = Math.max(0, Math.min(rows - 1, aimedBlock.getY() + y));
+        aimEnteredBlock(coordinates[newX][newY]);
     }
     
     /**
@@ -251,19 +595,39 @@ public class GameBoard extends GridPane {
      * This returns the block which is being aimed at
      * @return the aimed block
      */
-    public GameBlock getAimedBlock() {
+    public GameBlockCoordinate getAimedBlock() {
         return aimedBlock;
     }
     
     /**
-     * This method takes a set of coordinates, fetches the block at that coordinate
-     * and calls the fadeOut method on it
-     * @param coordinates a set of GameBlockCoordinates to fade out
+     * This method takes a mask of cleared blocks and fades every block in it out
+     * @param cleared the blocks to fade out, one long per row with bit x set for every column
+     */
+    public void fadeOut(long[] cleared) {
+        for (int y = 0; y < rows; y++) {
+            var row = cleared[y];
+            while (row != 0) {
+                fadeAnimator.fade(Long.numberOfTrailingZeros(row), y);
+                row &= row - 1;
+            }
+        }
+    }
+
+    /**
+     * Paint a frame of a block fading out
+     * @param x column
+     * @param y row
+     * @param opacity the opacity of the green painted over the empty block
+     * @return false if a new block has been played there, which ends the fade
      */
-    public void fadeOut(GameBlockCoordinate[] coordinates) {
-        for (var coordinate : coordinates) {
-            blocks[coordinate.getX()][coordinate.getY()].fadeOut();
+    boolean paintFade(int x, int y, double opacity) {
+        if (grid.get(x, y) != 0) return false;
+        if (canvas == null) {
+            blocks[x][y].paintFade(opacity);
+        } else {
+            atlas.paintFade(canvas.getGraphicsContext2D(), opacity, x * blockWidth, y * blockHeight);
         }
+        return true;
     }
 
 }
@@ -1,9 +1,6 @@
 package uk.ac.soton.comp1206.component;
 
 import javafx.beans.property.SimpleListProperty;
-import javafx.geometry.Pos;
-import javafx.scene.layout.HBox;
-import javafx.scene.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.dataStructure.Triplet;
@@ -27,49 +24,33 @@ public class Leaderboard extends ScoreList {
     }
     
     /**
-     * Overridden update method for different styling of the leaderboard
+     * Overridden update method for different styling of the leaderboard.
+     * Rows are matched to the players by name, so only the rows which changed are touched.
      */
     @Override
     public void update() {
         logger.info("Updating The Leaderboard");
-    
-        getChildren().clear();
-        getChildren().add(titleText);
-        
+        startUpdate();
+
+        int rank = 0;
         for (var triplet : playersScores) {
-            var box = new HBox();
-            box.setAlignment(Pos.CENTER);
-            getChildren().add(box);
-    
             var name = triplet.get0();
             var lives = triplet.get1();
-            var score = triplet.get2().toString();
-    
-            var playerText = new Text(name + " : " + score);
-            box.getChildren().add(playerText);
-            
-            //styling
-            playerText.getStyleClass().add("score-item");
-            //use lives to style the player : score Text
-            switch (lives) {
-                case "DEAD" -> {
-                    playerText.getStyleClass().add("deadscore");
-                    playerText.setStyle("-fx-fill: red;");
-                }
-                case "0" -> {
-                    playerText.setStyle("-fx-fill: red;");
-                }
-                case "1" -> {
-                    playerText.setStyle("-fx-fill: orange;");
-                }
-                case "2" -> {
-                    playerText.setStyle("-fx-fill: yellow;");
-                }
-                case "3" -> {
-                    playerText.setStyle("-fx-fill: lime;");
-                }
-            }
+
+            var row = placeRow(rowKey(name), rank++);
+            row.setScore(name, triplet.get2());
+            //use lives to style the player : score row
+            row.setStyleClass(switch (lives) {
+                case "DEAD" -> "deadscore";
+                case "0" -> "score-lives-0";
+                case "1" -> "score-lives-1";
+                case "2" -> "score-lives-2";
+                case "3" -> "score-lives-3";
+                default -> null;
+            });
         }
+
+        finishUpdate(rank);
     }
     
     /**
@@ -1,6 +1,7 @@
 package uk.ac.soton.comp1206.component;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -10,7 +11,8 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.event.ActionEvent;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
@@ -20,24 +22,36 @@ import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.dataStructure.RingBuffer;
 import uk.ac.soton.comp1206.media.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.ServerMessage.NickMsg;
 
 /**
  * This custom component is used to display the Lobby Chat of the game
- * when a player is connected to a game
+ * when a player is connected to a game.
+ * The messages are shown in a ListView, which only has nodes for the messages on screen, and are
+ * kept in a ring buffer, so only the latest messages are held however long the chat goes on.
  */
 public class LobbyChat extends VBox {
     
     private static final Logger logger = LogManager.getLogger(LobbyChat.class);
+
+    /**
+     * The most messages kept in the chat
+     */
+    private static final int CHAT_CAPACITY = 200;
+
     private Timer usersTimer;
     private Communicator communicator;
     private StringProperty nickname;
-    private List<String> users;
+    /**
+     * The names of the users in the lobby, sorted, in the same order as their texts in usersFlow
+     */
+    private ArrayList<String> users;
     private BooleanProperty disabledHost;
-    private VBox messages;
-    private Boolean scrollToBottom = false;
-    private ScrollPane scroll;
+    private RingBuffer<Message> messages;
+    private ListView<Message> messageList;
     private TextFlow usersFlow;
     
     /**
@@ -63,7 +77,7 @@ public class LobbyChat extends VBox {
         usersTimer.scheduleAtFixedRate(task, 500, 5000);
         
         disabledHost = new SimpleBooleanProperty(true);
-        users = new ArrayList<String>();
+        users = new ArrayList<>();
         build();
     }
     
@@ -79,16 +93,14 @@ public class LobbyChat extends VBox {
         usersFlow = new TextFlow();
         usersFlow.getStyleClass().add("messages");
         
-        messages = new VBox();
-        messages.getStyleClass().add("messages");
-        var welcomeText = new Text("Welcome to the lobby \n Type /nick NewName to change your name \n");
-        messages.getChildren().add(welcomeText);
+        messages = new RingBuffer<>(CHAT_CAPACITY);
+        messages.add(new Message(null, null, "Welcome to the lobby \n Type /nick NewName to change your name \n", false));
         
-        scroll = new ScrollPane();
-        scroll.getStyleClass().add("scroller");
-        setVgrow(scroll, Priority.ALWAYS);
-        scroll.setContent(messages);
-        scroll.setFitToWidth(true);
+        messageList = new ListView<>(messages);
+        messageList.getStyleClass().addAll("scroller", "messages");
+        messageList.setFocusTraversable(false);
+        messageList.setCellFactory(list -> new MessageCell());
+        setVgrow(messageList, Priority.ALWAYS);
         
         var messageField = new TextField();
         var startButton = new Button("Start");
@@ -97,7 +109,7 @@ public class LobbyChat extends VBox {
         bottomBar.setLeft(startButton);
         bottomBar.setRight(leaveButton);
         
-        getChildren().addAll(usersFlow, scroll, messageField, bottomBar);
+        getChildren().addAll(usersFlow, messageList, messageField, bottomBar);
         
         startButton.disableProperty().bind(disabledHost);
         startButton.setOnAction(this::startGame);
@@ -110,15 +122,6 @@ public class LobbyChat extends VBox {
         });
     }
     
-    /**
-     * Move the scroller to the bottom
-     */
-    public void jumpToBottom() {
-        if(!scrollToBottom) return;
-        scroll.setVvalue(1.0f);
-        scrollToBottom = false;
-    }
-    
     /**
      * Method to enable the host functionality of the lobby chat
      * the host can start the game, the start game button is enabled
@@ -157,33 +160,20 @@ public class LobbyChat extends VBox {
     
     /**
      * Handles when we receive a MSG from communicator
-     * @param communication the content of the message
+     * @param user the player who sent the message
+     * @param content the content of the message
      */
-    public void receiveMessage(String communication) {
+    public void receiveMessage(String user, String content) {
         logger.info("Received a message, displaying it to the chat UI");
         Multimedia.playAudio("sounds/message.wav");
         
-        var pair = communication.split(":", 2);
-        var user = pair[0];
-        var content = pair[1];
-        
         var time = java.time.LocalTime.now();
-        var timeStamp = new Text("["+ time.getHour() + ":" + time.getMinute() + "] ");
-        var userText = new Text(user + ": ");
-        userText.getStyleClass().add("playerBox");
-        if (user.equals(nickname.get())) {
-            userText.getStyleClass().add("myname");
-        }
-        var messageText = new Text(content);
-        messageText.getStyleClass().add("messages");
-        
-        var message = new TextFlow(timeStamp, userText, messageText);
-        
-        messages.getChildren().add(message);
+        var timeStamp = "["+ time.getHour() + ":" + time.getMinute() + "] ";
+        var mine = nickname != null && user.equals(nickname.get());
+        messages.add(new Message(timeStamp, user, content, mine));
     
-        if(scroll.getVvalue() == 0.0f || scroll.getVvalue() > 0.9f) {
-            scrollToBottom = true;
-        }
+        //only scroll when a message arrives, rather than on every pulse
+        messageList.scrollTo(messages.size() - 1);
     }
     
     /**
@@ -211,39 +201,90 @@ public class LobbyChat extends VBox {
      */
     public void setNickname(String nickname) {
         logger.info("Changing local player's nickname to {}", nickname);
+        if (this.nickname != null) {
+            var oldText = findUser(this.nickname.get());
+            if (oldText != null) oldText.getStyleClass().remove("myname");
+        }
         this.nickname = new SimpleStringProperty(nickname);
+        var newText = findUser(nickname);
+        if (newText != null && !newText.getStyleClass().contains("myname")) {
+            newText.getStyleClass().add("myname");
+        }
+    }
+    
+    /**
+     * Find the text showing a user
+     * @param user the name of the user
+     * @return the text, or null if they are not in the lobby
+     */
+    private Text findUser(String user) {
+        var index = Collections.binarySearch(users, user);
+        return index < 0 ? null : (Text) usersFlow.getChildren().get(index);
     }
     
     /**
      * Handles NICK messages from communicator
      * only cares about if the local player changed their name
-     * @param message the content of the NICK communication
+     * @param message the NICK communication
      */
-    public void handleChangeName(String message) {
+    public void handleChangeName(NickMsg message) {
         logger.info("Handling NICK messages from communicator");
-        if (!message.contains(":")) {
-            setNickname(message);
+        if (message.oldName() == null) {
+            setNickname(message.newName());
         }
     }
     
     /**
      * Handles the list of users from the communicator
-     * Adds them to the UI
-     * @param message the string of users separated by \n characters
-     */
-    public void handleUsers(String message) {
-        logger.info("Adding the list of users in the lobby to the UI");
-        var usersNames = message.split("\n");
-        usersFlow.getChildren().clear();
-        for (String user : usersNames) {
+     * The list is sorted and merged with the users already shown in one pass, so only the users
+     * who joined or left are added to or removed from the UI, and nothing is touched if the list
+     * has not changed
+     * @param names the names of the users
+     */
+    public void handleUsers(List<String> names) {
+        var sorted = new ArrayList<>(names);
+        Collections.sort(sorted);
+
+        var flow = usersFlow.getChildren();
+        var index = 0;
+        String previous = null;
+        for (String user : sorted) {
+            if (user.equals(previous)) continue;
+            previous = user;
+            //users sorted before this one who are not in the new list have left
+            while (index < users.size() && users.get(index).compareTo(user) < 0) {
+                removeUser(index);
+            }
+            if (index < users.size() && users.get(index).equals(user)) {
+                index++;
+                continue;
+            }
+            //a user who joined, put in their place in the sorted list
+            logger.debug("User {} joined the lobby", user);
             var userText = new Text(user + " ");
-            if (user.equals(nickname.get())) {
+            if (nickname != null && user.equals(nickname.get())) {
                 userText.getStyleClass().add("myname");
             }
-            usersFlow.getChildren().add(userText);
+            users.add(index, user);
+            flow.add(index, userText);
+            index++;
+        }
+        //everyone after the last user in the new list has left
+        while (index < users.size()) {
+            removeUser(users.size() - 1);
         }
     }
     
+    /**
+     * Remove a user who has left from the UI
+     * @param index the position of the user in the sorted list
+     */
+    private void removeUser(int index) {
+        logger.debug("User {} left the lobby", users.get(index));
+        users.remove(index);
+        usersFlow.getChildren().remove(index);
+    }
+    
     /**
      * Method to stop the users timer
      */
@@ -251,4 +292,72 @@ public class LobbyChat extends VBox {
         usersTimer.cancel();
         usersTimer = null;
     }
+
+    /**
+     * A message in the chat
+     */
+    private static class Message {
+        private final String timeStamp;
+        private final String user;
+        private final String content;
+        private final boolean mine;
+
+        /**
+         * Create a new message
+         * @param timeStamp when it was received, or null for a message from the game
+         * @param user who sent it, or null for a message from the game
+         * @param content the text of the message
+         * @param mine if the local player sent it
+         */
+        private Message(String timeStamp, String user, String content, boolean mine) {
+            this.timeStamp = timeStamp;
+            this.user = user;
+            this.content = content;
+            this.mine = mine;
+        }
+    }
+
+    /**
+     * A cell of the message list. The ListView only creates enough cells to fill the screen and
+     * reuses them as it scrolls, so each cell keeps its texts and just changes what they say.
+     */
+    private static class MessageCell extends ListCell<Message> {
+        private final Text timeStamp = new Text();
+        private final Text userText = new Text();
+        private final Text messageText = new Text();
+        private final TextFlow flow = new TextFlow(timeStamp, userText, messageText);
+
+        /**
+         * Create a new empty cell
+         */
+        private MessageCell() {
+            userText.getStyleClass().add("playerBox");
+            messageText.getStyleClass().add("messages");
+            //wrap the text to the width of the list rather than scrolling sideways
+            setPrefWidth(0);
+            flow.maxWidthProperty().bind(widthProperty().subtract(20));
+        }
+
+        /**
+         * Show a message in this cell
+         * @param message the message, or null if the cell is empty
+         * @param empty if the cell is empty
+         */
+        @Override
+        protected void updateItem(Message message, boolean empty) {
+            super.updateItem(message, empty);
+            if (empty || message == null) {
+                setGraphic(null);
+                return;
+            }
+            timeStamp.setText(message.timeStamp == null ? "" : message.timeStamp);
+            userText.setText(message.user == null ? "" : message.user + ": ");
+            messageText.setText(message.content);
+            userText.getStyleClass().remove("myname");
+            if (message.mine) {
+                userText.getStyleClass().add("myname");
+            }
+            setGraphic(flow);
+        }
+    }
 }
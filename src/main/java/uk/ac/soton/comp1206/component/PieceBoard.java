@@ -54,16 +54,31 @@ public class PieceBoard extends GameBoard {
                     grid.set(col, row, pieceBlocks[col][row]);
             }
         }
+        grid.commit();
         paintMiddleCircle();
     }
     
+    /**
+     * Empties the PieceBoard, for a piece which has not arrived yet
+     */
+    public void clearPiece() {
+        logger.info("Clearing the PieceBoard");
+        piece = null;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                grid.set(col, row, 0);
+            }
+        }
+        grid.commit();
+        repaintBlock(cols / 2, rows / 2); //remove the circle
+    }
+    
     /**
      * Method to determine the middle block in the piece board and paint a circle highlight in it
      */
     private void paintMiddleCircle() {
         logger.info("Painting middle circle in the piece board");
-        var middleBlock = getBlock(blocks[0].length/2, blocks.length/2);
-        middleBlock.paintCircle();
+        paintCircle(cols / 2, rows / 2);
     }
     
     /**
@@ -1,10 +1,11 @@
 package uk.ac.soton.comp1206.component;
 
+import java.util.HashMap;
+import java.util.Map;
 import javafx.animation.FadeTransition;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.geometry.Pos;
-import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.util.Duration;
@@ -18,6 +19,18 @@ import org.apache.logging.log4j.Logger;
 public class ScoreList extends VBox {
     
     private static final Logger logger = LogManager.getLogger(ScoreList.class);
+
+    /**
+     * The style classes colouring the top ranks
+     */
+    private static final String[] RANK_STYLES = new String[10];
+
+    static {
+        for (int rank = 0; rank < RANK_STYLES.length; rank++) {
+            RANK_STYLES[rank] = "score-rank-" + rank;
+        }
+    }
+
     private String title;
     /**
      * The name:score pairs of the ScoreList
@@ -27,6 +40,22 @@ public class ScoreList extends VBox {
      * The Text of the title on top of the ScoreList
      */
     protected Text titleText;
+
+    /**
+     * The rows currently shown, by key
+     */
+    private final Map<String, ScoreRow> rows = new HashMap<>();
+
+    /**
+     * The number of the current update, used to find rows which are no longer shown
+     */
+    private int generation;
+
+    /**
+     * How many times each name has been seen in the current update, as the same name can appear
+     * more than once
+     */
+    private final HashMap<String, Integer> seen = new HashMap<>();
     
     /**
      * Creates a score list with a title above all the scores
@@ -46,6 +75,7 @@ public class ScoreList extends VBox {
         titleText.getStyleClass().add("score-list");
         pairs = new SimpleListProperty<>();
         setAlignment(Pos.CENTER);
+        getChildren().add(titleText);
     }
     
     /**
@@ -62,71 +92,72 @@ public class ScoreList extends VBox {
     }
     
     /**
-     * Updates the List with the ListProperty that is bound
+     * Updates the List with the ListProperty that is bound.
+     * Rows are matched to the scores by name, so only the rows which changed are touched.
      */
     public void update() {
         logger.info("Updating The ScoreList");
-        
-        getChildren().clear();
-        getChildren().add(titleText);
-        
-        int counter = 0; //used for styling
+        startUpdate();
+
+        int rank = 0;
         for (var pair : pairs) {
-            var box = new HBox();
-            box.setAlignment(Pos.CENTER);
-            getChildren().add(box);
-            
-            var userText = new Text(pair.getKey() + " : ");
-            var scoreText = new Text(pair.getValue().toString());
-            box.getChildren().addAll(userText, scoreText);
-    
-            //styling
-            userText.getStyleClass().add("score-item");
-            scoreText.getStyleClass().add("score-item");
-            var extraEffect = "-fx-effect: dropshadow(gaussian, black, 1, 1.0, 1, 1); -fx-font-weight: 600;";
-            switch (counter) {
-                case 0 -> {
-                    userText.setStyle("-fx-fill: gold; " + extraEffect);
-                    scoreText.setStyle("-fx-fill: gold; " + extraEffect);
-                }
-                case 1 -> {
-                    userText.setStyle("-fx-fill: silver; " + extraEffect);
-                    scoreText.setStyle("-fx-fill: silver; " + extraEffect);
-                }
-                case 2 -> {
-                    userText.setStyle("-fx-fill: #CD7F32; " + extraEffect);
-                    scoreText.setStyle("-fx-fill: #CD7F32; " + extraEffect);
-                }
-                case 3 -> {
-                    userText.setStyle("-fx-fill: deeppink");
-                    scoreText.setStyle("-fx-fill: deeppink");
-                }
-                case 4 -> {
-                    userText.setStyle("-fx-fill: red");
-                    scoreText.setStyle("-fx-fill: red");
-                }
-                case 5 -> {
-                    userText.setStyle("-fx-fill: orange");
-                    scoreText.setStyle("-fx-fill: orange");
-                }
-                case 6 -> {
-                    userText.setStyle("-fx-fill: yellow");
-                    scoreText.setStyle("-fx-fill: yellow");
-                }
-                case 7 -> {
-                    userText.setStyle("-fx-fill: lime");
-                    scoreText.setStyle("-fx-fill: lime");
-                }
-                case 8 -> {
-                    userText.setStyle("-fx-fill: darkturquoise");
-                    scoreText.setStyle("-fx-fill: darkturquoise");
-                }
-                case 9 -> {
-                    userText.setStyle("-fx-fill: deepskyblue");
-                    scoreText.setStyle("-fx-fill: deepskyblue");
-                }
-            }
-            counter++;
+            var name = pair.getKey();
+            var row = placeRow(rowKey(name), rank);
+            row.setScore(name, pair.getValue());
+            row.setStyleClass(rank < RANK_STYLES.length ? RANK_STYLES[rank] : null);
+            rank++;
+        }
+
+        finishUpdate(rank);
+    }
+
+    /**
+     * Start reconciling the rows with a new list of scores
+     */
+    protected void startUpdate() {
+        generation++;
+        seen.clear();
+    }
+
+    /**
+     * Get the key of the row for the next score with a name in this update. A name which appears
+     * more than once gets a row for each, keyed as name#2, name#3 and so on.
+     * @param name the name
+     * @return the key of the row
+     */
+    protected String rowKey(String name) {
+        var count = seen.merge(name, 1, Integer::sum);
+        return count == 1 ? name : name + "#" + count;
+    }
+
+    /**
+     * Get the row for a key, creating it if it is new, and move it to the given rank if it is not
+     * already there
+     * @param key the key of the row, unique within the list
+     * @param rank the position of the row, 0 being the top
+     * @return the row
+     */
+    protected ScoreRow placeRow(String key, int rank) {
+        var row = rows.computeIfAbsent(key, k -> new ScoreRow());
+        row.generation = generation;
+
+        var children = getChildren();
+        var index = rank + 1; //after the title
+        if (index < children.size() && children.get(index) == row) return row;
+        children.remove(row);
+        children.add(Math.min(index, children.size()), row);
+        return row;
+    }
+
+    /**
+     * Finish reconciling the rows, removing every row which was not in the new list
+     * @param count the number of rows in the new list
+     */
+    protected void finishUpdate(int count) {
+        var children = getChildren();
+        if (children.size() > count + 1) {
+            children.remove(count + 1, children.size());
         }
+        rows.values().removeIf(row -> row.generation != generation);
     }
 }
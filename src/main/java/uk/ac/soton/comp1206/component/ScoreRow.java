@@ -0,0 +1,86 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.geometry.Pos;
+import javafx.scene.layout.HBox;
+import javafx.scene.text.Text;
+
+/**
+ * A ScoreRow is a single name : score row of a ScoreList. Rows are kept between updates and only
+ * change the text or style class that actually changed, so refreshing a list does not create nodes
+ * or parse any styles.
+ */
+class ScoreRow extends HBox {
+
+    /**
+     * The text holding the name
+     */
+    private final Text nameText = new Text();
+
+    /**
+     * The text holding the score
+     */
+    private final Text scoreText = new Text();
+
+    /**
+     * The name shown, or null before the first update
+     */
+    private String name;
+
+    /**
+     * The score shown
+     */
+    private int score;
+
+    /**
+     * The style class of the row, or null if it has none
+     */
+    private String styleClass;
+
+    /**
+     * The update this row was last part of, so rows missing from an update can be removed
+     */
+    int generation;
+
+    /**
+     * Create a new empty row
+     */
+    ScoreRow() {
+        setAlignment(Pos.CENTER);
+        nameText.getStyleClass().add("score-item");
+        scoreText.getStyleClass().add("score-item");
+        getChildren().addAll(nameText, scoreText);
+    }
+
+    /**
+     * Show a name and score, changing only the texts which are different
+     * @param name the name
+     * @param score the score
+     */
+    void setScore(String name, int score) {
+        if (!name.equals(this.name)) {
+            this.name = name;
+            nameText.setText(name + " : ");
+        }
+        if (score != this.score || scoreText.getText().isEmpty()) {
+            this.score = score;
+            scoreText.setText(Integer.toString(score));
+        }
+    }
+
+    /**
+     * Set the style class of the row, which colours it, replacing the previous one
+     * @param styleClass the style class, or null for none
+     */
+    void setStyleClass(String styleClass) {
+        if (styleClass == null ? this.styleClass == null : styleClass.equals(this.styleClass)) return;
+        if (this.styleClass != null) {
+            nameText.getStyleClass().remove(this.styleClass);
+            scoreText.getStyleClass().remove(this.styleClass);
+        }
+        if (styleClass != null) {
+            nameText.getStyleClass().add(styleClass);
+            scoreText.getStyleClass().add(styleClass);
+        }
+        this.styleClass = styleClass;
+    }
+}
@@ -0,0 +1,98 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * The TimerBar shows how long is left before the game timer runs out. It shrinks from full width to
+ * nothing while fading from green to red.
+ * <p>
+ * It is driven by one long-lived AnimationTimer from the time the countdown started, so restarting
+ * it just moves that time and there is only ever one animation running. The colours are worked out
+ * once for every bar.
+ */
+public class TimerBar extends Rectangle {
+
+    /**
+     * The number of colours between green and red
+     */
+    private static final int RAMP_STEPS = 256;
+
+    /**
+     * The colours of the bar from a full to an empty countdown
+     */
+    private static final Color[] RAMP = new Color[RAMP_STEPS];
+
+    static {
+        for (int i = 0; i < RAMP_STEPS; i++) {
+            var frac = (double) i / (RAMP_STEPS - 1);
+            RAMP[i] = Color.color(frac, 1 - frac, 0);
+        }
+    }
+
+    private final double fullWidth;
+    private final AnimationTimer driver;
+    private long start;
+    private long duration;
+    private int colour = -1;
+    private boolean running = false;
+
+    /**
+     * Create a new full timer bar
+     * @param width the width of the bar when the countdown starts
+     * @param height the height of the bar
+     */
+    public TimerBar(double width, double height) {
+        super(width, height);
+        this.fullWidth = width;
+        setFill(RAMP[0]);
+
+        driver = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                update(now);
+            }
+        };
+    }
+
+    /**
+     * Restart the countdown from the given time, which should be when the game timer it shows was
+     * scheduled
+     * @param delay the length of the countdown in ms
+     * @param startTime the time the countdown started, from System.nanoTime
+     */
+    public void restart(int delay, long startTime) {
+        start = startTime;
+        duration = Math.max(1, delay * 1_000_000L);
+        update(startTime);
+        if (!running) {
+            running = true;
+            driver.start();
+        }
+    }
+
+    /**
+     * Stop the countdown where it is
+     */
+    public void stop() {
+        running = false;
+        driver.stop();
+    }
+
+    /**
+     * Show the countdown at the given time
+     * @param now the time in nanoseconds
+     */
+    private void update(long now) {
+        var frac = Math.max(0, Math.min(1, (double) (now - start) / duration));
+        setWidth(fullWidth * (1 - frac));
+        var index = (int) (frac * (RAMP_STEPS - 1));
+        if (index != colour) {
+            colour = index;
+            setFill(RAMP[index]);
+        }
+        //nothing changes once the bar is empty, until it is restarted
+        if (frac >= 1) stop();
+    }
+}
@@ -0,0 +1,146 @@
+package uk.ac.soton.comp1206.dataStructure;
+
+import java.io.PrintWriter;
+
+/**
+ * A histogram of durations in nanoseconds, in the style of HdrHistogram.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into 32 equal buckets, so
+ * every value is kept to within about 3%, from 1ns up to about 18 minutes, in a fixed array of
+ * counts. Recording a value is a few bit operations and never allocates.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits of precision kept below the highest bit of a value
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of buckets each power of two is split into
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of bits of the largest value which can be recorded
+     */
+    private static final int MAX_BITS = 40;
+
+    /**
+     * The largest value which can be recorded, larger values are counted as this
+     */
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    private final String name;
+    private final long[] counts = new long[(MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    /**
+     * Create a new empty histogram
+     * @param name the name to report it under
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a duration
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        var value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Get the bucket a value is counted in
+     * @param value the value
+     * @return the index of its bucket
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        var shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        var sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Get the largest value counted in a bucket
+     * @param index the index of the bucket
+     * @return the largest value of the bucket
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        var shift = index / SUB_BUCKETS - 1;
+        var sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Get the value below which the given fraction of durations fall
+     * @param fraction the fraction, from 0 to 1
+     * @return the duration in nanoseconds, to within the precision of the histogram
+     */
+    public long percentile(double fraction) {
+        if (count == 0) return 0;
+        var target = Math.max(1, (long) Math.ceil(fraction * count));
+        var seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(max, highestValueOf(i));
+        }
+        return max;
+    }
+
+    /**
+     * Get the number of durations recorded
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the mean of the durations recorded
+     * @return the mean in nanoseconds
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get the longest duration recorded
+     * @return the maximum in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Forget every duration recorded
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Write a summary and the percentile distribution, in milliseconds
+     * @param out where to write
+     */
+    public void writeTo(PrintWriter out) {
+        out.printf("%s: %d values, mean %.3fms, max %.3fms%n", name, count, getMean() / 1e6, max / 1e6);
+        for (var fraction : new double[] {0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1}) {
+            out.printf("  p%-6s %10.3fms%n", fraction * 100, percentile(fraction) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.soton.comp1206.dataStructure;
+
+import java.util.Arrays;
+import javafx.collections.ObservableListBase;
+
+/**
+ * An observable list with a fixed capacity. Once it is full, adding an element removes the oldest
+ * one, so the list never grows and never copies its elements.
+ * <p>
+ * Elements are only added at the end, so it suits logs such as chat messages shown in a ListView.
+ * @param <E> the type of the elements
+ */
+public class RingBuffer<E> extends ObservableListBase<E> {
+
+    /**
+     * The elements, the oldest being at head
+     */
+    private final Object[] elements;
+
+    /**
+     * The index of the oldest element
+     */
+    private int head;
+
+    /**
+     * The number of elements held
+     */
+    private int size;
+
+    /**
+     * Create a new empty ring buffer
+     * @param capacity the most elements it can hold
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        elements = new Object[capacity];
+    }
+
+    /**
+     * Add an element at the end, removing the oldest element if the buffer is full
+     * @param element the element to add
+     * @return true
+     */
+    @Override
+    public boolean add(E element) {
+        beginChange();
+        if (size == elements.length) {
+            var oldest = get(0);
+            elements[head] = element;
+            head = (head + 1) % elements.length;
+            nextRemove(0, oldest);
+            nextAdd(size - 1, size);
+        } else {
+            elements[(head + size) % elements.length] = element;
+            size++;
+            nextAdd(size - 1, size);
+        }
+        endChange();
+        return true;
+    }
+
+    /**
+     * Remove every element
+     */
+    @Override
+    public void clear() {
+        if (size == 0) return;
+        beginChange();
+        for (int i = 0; i < size; i++) {
+            nextRemove(0, get(i));
+        }
+        Arrays.fill(elements, null);
+        head = 0;
+        size = 0;
+        endChange();
+    }
+
+    /**
+     * Get an element, 0 being the oldest
+     * @param index the index of the element
+     * @return the element
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return (E) elements[(head + index) % elements.length];
+    }
+
+    /**
+     * Get the number of elements held
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the most elements the buffer can hold
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,54 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Game Engine Listener is used to listen to everything that happens inside a GameEngine.
+ * Every method does nothing by default, so only the events of interest need to be overridden.
+ * <p>
+ * The engine calls these methods on whichever thread is driving it, so implementations should not
+ * assume they are on the JavaFX thread.
+ */
+public interface GameEngineListener {
+
+    /**
+     * Called when the current or following piece has changed
+     * @param current The current Game Piece
+     * @param following the following Game Piece
+     */
+    public default void nextPiece(GamePiece current, GamePiece following) {
+    }
+
+    /**
+     * Called when lines have been cleared
+     * The array is reused by the engine, so it is only valid during the call
+     * @param cleared the blocks cleared, one long per row with bit x set for every cleared column
+     */
+    public default void linesCleared(long[] cleared) {
+    }
+
+    /**
+     * Called when the game increases in level
+     */
+    public default void levelUp() {
+    }
+
+    /**
+     * Called when the player loses a life
+     */
+    public default void loseLife() {
+    }
+
+    /**
+     * Called when the game timer should be reset
+     * @param delay the length of the new countdown in ms
+     */
+    public default void timerReset(int delay) {
+    }
+
+    /**
+     * Called when the game has ended
+     */
+    public default void gameEnd() {
+    }
+}
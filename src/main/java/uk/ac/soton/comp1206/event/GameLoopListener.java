@@ -9,7 +9,8 @@ public interface GameLoopListener {
      * The method to execute on the event
      * To be overridden on implementation
      * @param time the length of the game loop countdown
+     * @param startTime when the countdown was scheduled, from System.nanoTime
      */
-    public void gameLoop(int time);
+    public void gameLoop(int time, long startTime);
     
 }
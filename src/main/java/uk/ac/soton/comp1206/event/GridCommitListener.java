@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * The Grid Commit Listener is used to listen to when a move has been committed to a Grid
+ */
+public interface GridCommitListener {
+
+    /**
+     * The method to execute when the changes to the grid have been committed
+     * The dirty blocks of the grid are still available while this is called
+     * @param grid the grid that was committed
+     */
+    public void gridCommitted(Grid grid);
+
+}
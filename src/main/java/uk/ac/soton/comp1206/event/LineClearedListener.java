@@ -1,7 +1,5 @@
 package uk.ac.soton.comp1206.event;
 
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
-
 /**
  * This Line Cleared Listener is used to listening when a line is cleared
  */
@@ -10,8 +8,9 @@ public interface LineClearedListener {
     /**
      * This is the method which will execute when a line is cleared
      * To be overridden on implementation
-     * @param coordinates the coordinates of the blocks cleared
+     * The array is reused by the game, so it is only valid during the call
+     * @param cleared the blocks cleared, one long per row with bit x set for every cleared column
      */
-    public void lineCleared(GameBlockCoordinate[] coordinates);
+    public void lineCleared(long[] cleared);
     
 }
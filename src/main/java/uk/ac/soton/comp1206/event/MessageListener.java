@@ -8,7 +8,8 @@ public interface MessageListener {
     /**
      * The method to execute when a message has been received
      * To be overridden on implementation
+     * @param user the player who sent it
      * @param message the message received
      */
-    public void receiveMessage(String message);
+    public void receiveMessage(String user, String message);
 }
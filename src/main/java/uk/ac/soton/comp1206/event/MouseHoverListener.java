@@ -1,10 +1,10 @@
 package uk.ac.soton.comp1206.event;
 
-import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 
 /**
  * The Mouse Hover Listener is used to listen to the event
- * in which the mouse is hovered over a GameBlock
+ * in which the mouse is hovered over a block of a GameBoard
  */
 public interface MouseHoverListener {
     
@@ -13,6 +13,6 @@ public interface MouseHoverListener {
      * To be overridden upon implementation
      * @param block the block which is being hovered over
      */
-    public void mouseHover(GameBlock block);
+    public void mouseHover(GameBlockCoordinate block);
     
 }
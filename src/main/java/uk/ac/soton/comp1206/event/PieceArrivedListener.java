@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Piece Arrived Listener is used to listen to when a piece arrives from the server for a
+ * placeholder which was dealt while waiting for it
+ */
+public interface PieceArrivedListener {
+
+    /**
+     * Handle a piece arriving for a placeholder
+     * @param placeholder the placeholder dealt in its place
+     * @param piece the piece which arrived
+     */
+    public void pieceArrived(GamePiece placeholder, GamePiece piece);
+}
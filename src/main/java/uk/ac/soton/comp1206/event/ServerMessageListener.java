@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.network.ServerMessage;
+
+/**
+ * The Server Message Listener is used for listening to one kind of message received by the
+ * communicator, already parsed
+ * @param <T> the kind of message
+ */
+public interface ServerMessageListener<T extends ServerMessage> {
+
+    /**
+     * Handle an incoming message received by the Communicator
+     * @param message the message that was received
+     */
+    public void receiveMessage(T message);
+}
@@ -1,7 +1,5 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.HashSet;
-import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 import javafx.application.Platform;
@@ -9,9 +7,9 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.event.GameEndListener;
+import uk.ac.soton.comp1206.event.GameEngineListener;
 import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.LevelUpListener;
 import uk.ac.soton.comp1206.event.LineClearedListener;
@@ -19,13 +17,14 @@ import uk.ac.soton.comp1206.event.LoseLifeListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
 
 /**
- * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
- * and to handle actions made by the player should take place inside this class.
+ * The Game class links a GameEngine to the JavaFX UI. The rules and state of the game live in the
+ * engine; the Game exposes them as bindable properties, runs the game loop timer and relays the
+ * engine's events to the UI listeners on the JavaFX thread.
  */
 public class Game {
-    
+
     private static final Logger logger = LogManager.getLogger(Game.class);
-    
+
     /**
      * Bindable score integer property of the Game class
      */
@@ -37,63 +36,63 @@ public class Game {
     /**
      * Bindable lives integer property of the Game class
      */
-    public IntegerProperty lives = new SimpleIntegerProperty(3);
+    public IntegerProperty lives = new SimpleIntegerProperty(GameEngine.STARTING_LIVES);
     /**
      * Bindable multiplier integer property of the Game class
      */
     public IntegerProperty multiplier = new SimpleIntegerProperty(1);
-    
-    /**
-     * Number of rows
-     */
-    protected final int rows;
-    
-    /**
-     * Number of columns
-     */
-    protected final int cols;
-    
-    /**
-     * The grid model linked to the game
-     */
-    protected final Grid grid;
-    
+
     /**
-     * random field variable used to generate pieces
+     * The engine which holds the rules and state of this game
      */
-    private final Random random = new Random();
-    
-    private Timer gameLoopTimer;
-    
+    protected final GameEngine engine;
+
     /**
-     * field variable which stores the current piece model
+     * The one timer thread the game loop runs on for the whole game, or null once it has ended
      */
-    public GamePiece currentPiece;
+    private Timer gameLoopTimer = new Timer("GameLoopTimer", true);
+
     /**
-     * field variable which stores the following piece model
+     * The game loop task currently scheduled
      */
-    public GamePiece followingPiece;
-    
+    private TimerTask gameLoopTask;
+
     private NextPieceListener nextPieceListener;
     private LineClearedListener lineClearedListener;
     private GameLoopListener gameLoopListener;
     private GameEndListener gameEndListener;
     private LevelUpListener levelUpListener;
     private LoseLifeListener loseLifeListener;
-    
+
     /**
-     * Create a new game with the specified rows and columns. Creates a corresponding grid model.
+     * Create a new game with the specified rows and columns and randomly seeded pieces.
+     * Creates a corresponding engine.
      * @param cols number of columns
      * @param rows number of rows
      */
     public Game(int cols, int rows) {
-        this.cols = cols;
-        this.rows = rows;
-        
-        //Create a new grid model to represent the game state
-        this.grid = new Grid(cols,rows);
+        this(cols, rows, new SeededPieceSource());
     }
-    
+
+    /**
+     * Create a new game with the specified rows and columns, getting its pieces from the given
+     * source. Creates a corresponding engine.
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieceSource where new pieces come from
+     */
+    public Game(int cols, int rows, PieceSource pieceSource) {
+        if (pieceSource instanceof SeededPieceSource seeded) {
+            logger.info("Pieces seeded with {}", seeded.getSeed());
+        }
+        engine = new GameEngine(cols, rows, pieceSource);
+        engine.setLog(new GameLog(cols, rows));
+        engine.setListener(new EngineEvents());
+        if (pieceSource instanceof NetworkPieceSource network) {
+            network.setOnPieceArrived(engine::pieceArrived);
+        }
+    }
+
     /**
      * Start the game
      */
@@ -101,173 +100,107 @@ public class Game {
         logger.info("Starting game");
         initialiseGame();
     }
-    
+
     /**
      * Initialise a new game and set up anything that needs to be done at the start
      */
     public void initialiseGame() {
         logger.info("Initialising game");
-        followingPiece = spawnPiece();
-        nextPiece();
-        //setting timer
-        gameLoopTimer = new Timer();
-        var timerTask = new TimerTask() {
-            /**
-             * The action to be performed by this timer task.
-             */
-            @Override
-            public void run() {
-                gameLoop();
-            }
-        };
-        gameLoopTimer.schedule(timerTask, getTimerDelay());
-        Platform.runLater(() -> gameLoopListener.gameLoop(getTimerDelay()));
+        engine.start();
     }
-    
+
     /**
      * Handle what should happen when a particular block is clicked
-     * @param gameBlock the block that was clicked
+     * @param gameBlock the coordinate of the block that was clicked
      * @return if the piece was played or not
      */
-    public Boolean blockClicked(GameBlock gameBlock) {
+    public Boolean blockClicked(GameBlockCoordinate gameBlock) {
         //Get the position of this block
         int x = gameBlock.getX();
         int y = gameBlock.getY();
-        
+
         logger.info("Block at ({},{}) has been clicked", x, y);
-        
-        if (!grid.canPlayPiece(currentPiece, x, y)) return false; //checks piece can be placed
-        
-        grid.playPiece(currentPiece, x, y); //plays piece
-        afterPiece(); //clear full rows and columns
-        nextPiece(); //sets a new piece to the current piece
-        return true;
+
+        return playPiece(x, y);
+    }
+
+    /**
+     * Play the current piece with its centre at the given coordinates, if it fits
+     * @param x column
+     * @param y row
+     * @return if the piece was played or not
+     */
+    public Boolean playPiece(int x, int y) {
+        var played = engine.playPiece(x, y);
+        updateProperties();
+        return played;
     }
-    
+
     /**
      * Get the grid model inside this game representing the game state of the board
      * @return game grid model
      */
     public Grid getGrid() {
-        return grid;
+        return engine.getGrid();
     }
-    
+
     /**
      * Get the number of columns in this game
      * @return number of columns
      */
     public int getCols() {
-        return cols;
+        return engine.getCols();
     }
-    
+
     /**
      * Get the number of rows in this game
      * @return number of rows
      */
     public int getRows() {
-        return rows;
+        return engine.getRows();
     }
-    
+
     /**
-     * this method generates a random number and returns a new random GamePiece
-     * @return random GamePiece
+     * Get the engine which holds the rules and state of this game
+     * @return the game engine
      */
-    public GamePiece spawnPiece() {
-        var piece = random.nextInt(GamePiece.PIECES);
-        var gamePiece = GamePiece.createPiece(piece);
-        logger.info("generating a new piece: {}", gamePiece);
-        return gamePiece;
+    public GameEngine getEngine() {
+        return engine;
     }
-    
+
+    /**
+     * Get the log of every move made in this game, which can be saved and replayed
+     * @return the game log
+     */
+    public GameLog getLog() {
+        return engine.getLog();
+    }
+
+    /**
+     * Get the source new pieces come from
+     * @return the piece source
+     */
+    public PieceSource getPieceSource() {
+        return engine.getPieceSource();
+    }
+
     /**
      * replaces the current GamePiece with a new GamePiece
      */
     public void nextPiece() {
-        currentPiece = followingPiece;
-        logger.info("Current Piece is {}", currentPiece);
-        followingPiece = spawnPiece();
-        nextPieceListener.nextPiece(currentPiece, followingPiece);
+        engine.nextPiece();
     }
-    
-    /**
-     * logic to handle what happens after a GamePiece has been placed
-     * Clearing lines
-     */
-    public void afterPiece() {
-        logger.info("Checking if any rows or columns are full");
-        var blocksToClear = new HashSet<GameBlockCoordinate>();
-        int linesToClear = 0;
-        //checking rows
-        for (int row = 0; row < rows; row++) {
-            var counter = 0;
-            for (int col = 0; col < cols; col++) {
-                if (grid.get(col,row) > 0) counter++; //count how many occupied in this row
-            }
-            if (counter == cols) { //if row is full, add row to the clear list
-                for (int col = 0; col < cols; col++) {
-                    blocksToClear.add(new GameBlockCoordinate(col, row));
-                }
-                linesToClear++;
-            }
-        }
-        //checking columns
-        for (int col = 0; col < cols; col++) {
-            var counter = 0;
-            for (int row = 0; row < cols; row++) {
-                if (grid.get(col,row) > 0) counter++; //count how many occupied in this row
-            }
-            if (counter == rows) { //if row is full, add row to the clear list
-                for (int row = 0; row < rows; row++) {
-                    blocksToClear.add(new GameBlockCoordinate(col, row));
-                }
-                linesToClear++;
-            }
-        }
-    
-        if (linesToClear > 0) {
-            logger.info("clearing {} lines", linesToClear);
-            score(linesToClear, blocksToClear.size()); //increase score
-            multiplier.set(multiplier.get() + 1); //increase multiplier
-            //telling listener of blocks to clear
-            lineClearedListener.lineCleared(blocksToClear.toArray(new GameBlockCoordinate[0]));
-        } else {
-            multiplier.set(1);
-        }
-    
-        //updating level
-        var oldLevel = level.get();
-        level.set(score.get() / 1000);
-        if (oldLevel < level.get()) {
-            Platform.runLater(() -> levelUpListener.levelUp());
-        }
-        
-        //clear all blocks in the clear list
-        for (var block : blocksToClear) {
-            grid.set(block.getX(), block.getY(), 0);
-        }
-        
-        //resetting timer
-        gameLoopTimer.cancel();
-        gameLoopTimer = new Timer();
-        var timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                gameLoop();
-            }
-        };
-        gameLoopTimer.schedule(timerTask, getTimerDelay());
-        gameLoopListener.gameLoop(getTimerDelay());
-    }
-    
+
     /**
-     * this method updates the score
-     * @param lines number of lines cleared
-     * @param blocks number of blocks cleared
+     * Copy the state of the engine into the bindable properties
      */
-    private void score(int lines, int blocks) {
-        score.set(score.get() + (lines * blocks * 10 * multiplier.get()));
+    private void updateProperties() {
+        score.set(engine.getScore());
+        level.set(engine.getLevel());
+        lives.set(engine.getLives());
+        multiplier.set(engine.getMultiplier());
     }
-    
+
     /**
      * set a NextPieceListener use in the nextPiece method
      * @param listener NextPieceListener
@@ -275,7 +208,7 @@ public class Game {
     public void setNextPieceListener(NextPieceListener listener) {
         nextPieceListener = listener;
     }
-    
+
     /**
      * Set the listener for when lines are cleared
      * @param listener The listener to set
@@ -283,7 +216,7 @@ public class Game {
     public void setLineClearedListener(LineClearedListener listener) {
         lineClearedListener = listener;
     }
-    
+
     /**
      * Set the GameLoopListener for when the game timer is reset
      * @param listener the listener to set
@@ -291,7 +224,7 @@ public class Game {
     public void setGameLoopListener(GameLoopListener listener) {
         gameLoopListener = listener;
     }
-    
+
     /**
      * Set the Game End Listener for when the game ends
      * @param listener The Listener to set to gameEndListener
@@ -299,7 +232,7 @@ public class Game {
     public void setGameEndListener(GameEndListener listener) {
         gameEndListener = listener;
     }
-    
+
     /**
      * Set the Level Up Listener for when the game increases in level
      * @param listener the listener to set
@@ -307,7 +240,7 @@ public class Game {
     public void setLevelUpListener(LevelUpListener listener) {
         levelUpListener = listener;
     }
-    
+
     /**
      * Set the Lose-Life Listener for when the player loses a life
      * @param listener the listener to set
@@ -315,84 +248,116 @@ public class Game {
     public void setLoseLifeListener(LoseLifeListener listener) {
         loseLifeListener = listener;
     }
-    
+
     /**
      * Method to rotate the current piece
      */
     public void rotateCurrentPiece() {
-        currentPiece.rotate();
-        nextPieceListener.nextPiece(currentPiece, followingPiece);
+        engine.rotateCurrentPiece(1);
     }
-    
+
     /**
      * Method to rotate the current piece multiple times
      * @param rotations amount of times to rotate
      */
     public void rotateCurrentPiece(int rotations) {
-        currentPiece.rotate(rotations);
-        nextPieceListener.nextPiece(currentPiece, followingPiece);
+        engine.rotateCurrentPiece(rotations);
     }
-    
+
     /**
      * Method to swap the current and following pieces
      */
     public void swapCurrentPiece() {
-        var temp = currentPiece;
-        currentPiece = followingPiece;
-        followingPiece = temp;
-        nextPieceListener.nextPiece(currentPiece, followingPiece);
+        engine.swapCurrentPiece();
     }
-    
+
     /**
-     * This method calculates the timer delay in respect to the current level
-     * @return the timer delay in ms
+     * Restart the game loop timer with the given delay
+     * @param delay the timer delay in ms
      */
-    private int getTimerDelay() {
-        logger.info("Calculating timer delay");
-        var time = 12000 - (500 * level.get());
-        if (time < 2500) time = 2500;
-        return time;
+    private void resetTimer(int delay) {
+        if (gameLoopTimer == null) return; //the game has already ended
+        //only the task is replaced, the timer thread lives as long as the game
+        if (gameLoopTask != null) {
+            gameLoopTask.cancel();
+            gameLoopTimer.purge();
+        }
+        gameLoopTask = new TimerTask() {
+            /**
+             * The action to be performed by this timer task.
+             */
+            @Override
+            public void run() {
+                //the timer may have been reset after this ran but before the JavaFX thread got to it
+                Platform.runLater(() -> {
+                    if (gameLoopTask == this) gameLoop();
+                });
+            }
+        };
+        var scheduled = System.nanoTime();
+        gameLoopTimer.schedule(gameLoopTask, delay);
+        if (gameLoopListener != null) gameLoopListener.gameLoop(delay, scheduled);
     }
-    
+
     /**
      * This method handles when the timer reaches zero
      * lose a life and current piece, timer and multiplier is reset.
+     * Called on the JavaFX thread.
      */
     protected void gameLoop() {
         logger.info("Timer over");
-        if (lives.get() <= 0) {
-            endGame(); //if no more lives, end game
-            Platform.runLater(() -> gameEndListener.gameEnd());
-            return;
-        }
-        lives.set(lives.get() - 1);
-        Platform.runLater(() -> loseLifeListener.loseLife());
-        multiplier.set(1);
-        Platform.runLater(() -> nextPiece());
-        
-        //resetting timer
-        gameLoopTimer.cancel();
-        gameLoopTimer = new Timer();
-        var timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                gameLoop();
-            }
-        };
-        var delay = getTimerDelay();
-        gameLoopTimer.schedule(timerTask, delay);
-        Platform.runLater(() -> gameLoopListener.gameLoop(delay));
+        if (gameLoopTimer == null) return; //the game has already ended
+        engine.timerExpired();
+        updateProperties();
     }
-    
+
     /**
      * This method ends the game by cancelling the timer and removing all the listeners
      */
     public void endGame() {
         logger.info("Ending the game");
-        gameLoopTimer.cancel();
+        if (gameLoopTimer != null) gameLoopTimer.cancel();
         gameLoopTimer = null;
+        gameLoopTask = null;
         nextPieceListener = null;
         lineClearedListener = null;
         gameLoopListener = null;
     }
+
+    /**
+     * Relays the events of the engine to the UI listeners
+     */
+    private class EngineEvents implements GameEngineListener {
+
+        @Override
+        public void nextPiece(GamePiece current, GamePiece following) {
+            if (nextPieceListener != null) nextPieceListener.nextPiece(current, following);
+        }
+
+        @Override
+        public void linesCleared(long[] cleared) {
+            if (lineClearedListener != null) lineClearedListener.lineCleared(cleared);
+        }
+
+        @Override
+        public void levelUp() {
+            if (levelUpListener != null) levelUpListener.levelUp();
+        }
+
+        @Override
+        public void loseLife() {
+            if (loseLifeListener != null) loseLifeListener.loseLife();
+        }
+
+        @Override
+        public void timerReset(int delay) {
+            resetTimer(delay);
+        }
+
+        @Override
+        public void gameEnd() {
+            endGame();
+            if (gameEndListener != null) gameEndListener.gameEnd();
+        }
+    }
 }
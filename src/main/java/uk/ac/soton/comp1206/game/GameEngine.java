@@ -0,0 +1,361 @@
+package uk.ac.soton.comp1206.game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.GameEngineListener;
+
+/**
+ * The GameEngine holds the rules and state of a TetrECS game: the grid, the pieces, the score,
+ * level, lives and multiplier, and the timer policy.
+ * <p>
+ * It is plain Java and does not need the JavaFX toolkit, so it can be driven headless, for example
+ * by simulations. It does not own a clock either: whoever drives it is told how long each timer
+ * countdown should be and calls {@link #timerExpired()} when it runs out.
+ * <p>
+ * The engine is not thread safe, it should only be driven from one thread at a time.
+ */
+public class GameEngine {
+
+    private static final Logger logger = LogManager.getLogger(GameEngine.class);
+
+    /**
+     * The number of lives a game starts with
+     */
+    public static final int STARTING_LIVES = 3;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * The grid model of the game
+     */
+    private final Grid grid;
+
+    /**
+     * Where new pieces come from
+     */
+    private final PieceSource pieceSource;
+
+    /**
+     * The blocks cleared by the last move, one long per row, reused between moves
+     */
+    private final long[] cleared;
+
+    private int score = 0;
+    private int level = 0;
+    private int lives = STARTING_LIVES;
+    private int multiplier = 1;
+    private boolean ended = false;
+
+    private GamePiece currentPiece;
+    private GamePiece followingPiece;
+
+    private GameEngineListener listener = new GameEngineListener() {};
+
+    /**
+     * The log every move is recorded into, or null if the game is not being recorded
+     */
+    private GameLog log;
+
+    /**
+     * Create a new engine with the specified columns and rows, getting its pieces from the given
+     * source
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieceSource where new pieces come from
+     */
+    public GameEngine(int cols, int rows, PieceSource pieceSource) {
+        this.cols = cols;
+        this.rows = rows;
+        this.pieceSource = pieceSource;
+
+        //Create a new grid model to represent the game state
+        this.grid = new Grid(cols, rows);
+        this.cleared = new long[rows];
+    }
+
+    /**
+     * Set the listener to tell about everything that happens in the game
+     * @param listener the listener to set
+     */
+    public void setListener(GameEngineListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Set the log to record every move into. Must be set before the game starts.
+     * @param log the log to record into, or null to stop recording
+     */
+    public void setLog(GameLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Get the log every move is recorded into
+     * @return the game log, or null if the game is not being recorded
+     */
+    public GameLog getLog() {
+        return log;
+    }
+
+    /**
+     * Start the game: deal the first pieces and start the first countdown
+     */
+    public void start() {
+        logger.info("Starting engine");
+        if (log != null && pieceSource instanceof SeededPieceSource seeded) log.seed(seeded.getSeed());
+        followingPiece = drawPiece();
+        nextPiece();
+        listener.timerReset(getTimerDelay());
+    }
+
+    /**
+     * Play the current piece with its centre at the given coordinates, if it fits
+     * @param x column
+     * @param y row
+     * @return if the piece was played or not
+     */
+    public boolean playPiece(int x, int y) {
+        if (ended || pieceSource.isPending(currentPiece)) return false; //a placeholder cannot be played
+        if (!grid.canPlayPiece(currentPiece, x, y)) return false; //checks piece can be placed
+
+        if (log != null) log.place(x, y);
+        grid.playPiece(currentPiece, x, y); //plays piece
+        afterPiece(x, y); //clear full rows and columns
+        grid.commit(); //update the display with the whole move at once
+        nextPiece(); //sets a new piece to the current piece
+        return true;
+    }
+
+    /**
+     * logic to handle what happens after a GamePiece has been placed
+     * Clearing lines, scoring, levelling up and resetting the timer
+     * @param x the x coordinate the piece was played at
+     * @param y the y coordinate the piece was played at
+     */
+    public void afterPiece(int x, int y) {
+        logger.debug("Checking if any rows or columns are full");
+        //only the lines the piece touched can have been filled, these are cleared straight away
+        var linesToClear = grid.clearLines(x, y, cleared);
+
+        if (linesToClear > 0) {
+            var blocksToClear = 0;
+            for (var row : cleared) {
+                blocksToClear += Long.bitCount(row);
+            }
+            logger.debug("clearing {} lines", linesToClear);
+            score(linesToClear, blocksToClear); //increase score
+            multiplier++; //increase multiplier
+            //telling listener of blocks cleared
+            listener.linesCleared(cleared);
+        } else {
+            multiplier = 1;
+        }
+
+        //updating level
+        var oldLevel = level;
+        level = score / 1000;
+        if (oldLevel < level) {
+            listener.levelUp();
+        }
+
+        //resetting timer
+        listener.timerReset(getTimerDelay());
+    }
+
+    /**
+     * this method updates the score
+     * @param lines number of lines cleared
+     * @param blocks number of blocks cleared
+     */
+    private void score(int lines, int blocks) {
+        score += lines * blocks * 10 * multiplier;
+    }
+
+    /**
+     * replaces the current GamePiece with the following one and gets a new following piece
+     */
+    public void nextPiece() {
+        currentPiece = followingPiece;
+        followingPiece = drawPiece();
+        logger.debug("Current Piece is {}", currentPiece);
+        listener.nextPiece(currentPiece, followingPiece);
+    }
+
+    /**
+     * Get a new piece from the piece source, recording it
+     * @return the new piece
+     */
+    private GamePiece drawPiece() {
+        var piece = pieceSource.nextPiece();
+        //a placeholder is recorded when its piece arrives
+        if (log != null && !pieceSource.isPending(piece)) log.piece(piece.getPiece());
+        return piece;
+    }
+
+    /**
+     * Put a piece which has arrived in place of the placeholder dealt for it, keeping any rotation
+     * of the placeholder. If the placeholder has already been discarded, the piece is only recorded.
+     * @param placeholder the placeholder
+     * @param piece the piece which arrived
+     */
+    public void pieceArrived(GamePiece placeholder, GamePiece piece) {
+        if (log != null) log.piece(piece.getPiece());
+        piece.rotate(placeholder.getRotation());
+        if (currentPiece == placeholder) {
+            currentPiece = piece;
+        } else if (followingPiece == placeholder) {
+            followingPiece = piece;
+        } else {
+            return;
+        }
+        listener.nextPiece(currentPiece, followingPiece);
+    }
+
+    /**
+     * Rotate the current piece the given number of times to the right
+     * @param rotations amount of times to rotate
+     */
+    public void rotateCurrentPiece(int rotations) {
+        if (log != null) log.rotate(rotations);
+        currentPiece.rotate(rotations);
+        listener.nextPiece(currentPiece, followingPiece);
+    }
+
+    /**
+     * Swap the current and following pieces
+     */
+    public void swapCurrentPiece() {
+        if (log != null) log.swap();
+        var temp = currentPiece;
+        currentPiece = followingPiece;
+        followingPiece = temp;
+        listener.nextPiece(currentPiece, followingPiece);
+    }
+
+    /**
+     * The timer policy: the countdown gets shorter with every level, down to a minimum
+     * @return the timer delay in ms
+     */
+    public int getTimerDelay() {
+        var time = 12000 - (500 * level);
+        if (time < 2500) time = 2500;
+        return time;
+    }
+
+    /**
+     * Handle the timer reaching zero. If there are no lives left the game ends, otherwise a life is
+     * lost, the current piece is discarded and the multiplier and timer are reset.
+     */
+    public void timerExpired() {
+        if (ended) return;
+        logger.debug("Timer over");
+        if (log != null) log.timer();
+        if (lives <= 0) {
+            logger.info("Game over");
+            ended = true;
+            listener.gameEnd();
+            return;
+        }
+        lives--;
+        listener.loseLife();
+        multiplier = 1;
+        nextPiece();
+        listener.timerReset(getTimerDelay());
+    }
+
+    /**
+     * Get the grid model representing the game state of the board
+     * @return game grid model
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Get the number of columns in this game
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows in this game
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the current score
+     * @return score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the current level
+     * @return level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the number of lives left
+     * @return lives
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Get the current score multiplier
+     * @return multiplier
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Get whether the game has ended
+     * @return if the game has ended
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Get the source new pieces come from
+     * @return the piece source
+     */
+    public PieceSource getPieceSource() {
+        return pieceSource;
+    }
+
+    /**
+     * Get the piece which will be played next
+     * @return the current piece
+     */
+    public GamePiece getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * Get the piece which comes after the current one
+     * @return the following piece
+     */
+    public GamePiece getFollowingPiece() {
+        return followingPiece;
+    }
+}
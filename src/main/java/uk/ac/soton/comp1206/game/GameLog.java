@@ -0,0 +1,434 @@
+package uk.ac.soton.comp1206.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * The GameLog is an append-only record of everything that happened in a game: the seed, every
+ * piece dealt, every rotation, swap and placement, and every timer expiry, each with the time since
+ * the event before it. A GameReplayer can rebuild the state of the game from it.
+ * <p>
+ * The log is kept in a compact binary form. Numbers are written as varints, 7 bits per byte, and
+ * the type and time of an event share the first varint, so most events take two or three bytes.
+ * <p>
+ * The log is written by the GameEngine and is not thread safe.
+ */
+public class GameLog {
+
+    /**
+     * The seed of the pieces, when they were seeded
+     */
+    public static final int SEED = 0;
+    /**
+     * A piece was dealt
+     */
+    public static final int PIECE = 1;
+    /**
+     * The current piece was rotated
+     */
+    public static final int ROTATE = 2;
+    /**
+     * The current and following pieces were swapped
+     */
+    public static final int SWAP = 3;
+    /**
+     * The current piece was played
+     */
+    public static final int PLACE = 4;
+    /**
+     * The timer ran out
+     */
+    public static final int TIMER = 5;
+
+    /**
+     * The first bytes of a saved log
+     */
+    private static final byte[] MAGIC = {'T', 'L', 'O', 'G'};
+
+    /**
+     * The version of the encoding
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of bits of the first varint of an event used for its type
+     */
+    private static final int TYPE_BITS = 3;
+
+    private final int cols;
+    private final int rows;
+    private final long startTime;
+    private final LongSupplier clock;
+
+    private byte[] bytes = new byte[256];
+    private int size = 0;
+    private int events = 0;
+    private long lastTime;
+
+    /**
+     * Create a new empty log for a game of the given size, timed with the system clock
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public GameLog(int cols, int rows) {
+        this(cols, rows, System::currentTimeMillis);
+    }
+
+    /**
+     * Create a new empty log for a game of the given size, timed with the given clock
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param clock the clock to time events with, in ms
+     */
+    public GameLog(int cols, int rows, LongSupplier clock) {
+        this(cols, rows, clock.getAsLong(), clock);
+    }
+
+    /**
+     * Create a new empty log
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param startTime the time the game started, in ms
+     * @param clock the clock to time events with, in ms
+     */
+    private GameLog(int cols, int rows, long startTime, LongSupplier clock) {
+        this.cols = cols;
+        this.rows = rows;
+        this.startTime = startTime;
+        this.lastTime = startTime;
+        this.clock = clock;
+    }
+
+    /**
+     * Record the seed of the pieces
+     * @param seed the seed
+     */
+    public void seed(long seed) {
+        event(SEED);
+        writeVarLong(seed);
+    }
+
+    /**
+     * Record a piece being dealt
+     * @param piece the piece number
+     */
+    public void piece(int piece) {
+        event(PIECE);
+        writeVarLong(piece);
+    }
+
+    /**
+     * Record the current piece being rotated
+     * @param rotations the number of times it was rotated to the right
+     */
+    public void rotate(int rotations) {
+        event(ROTATE);
+        writeVarLong(rotations & 3);
+    }
+
+    /**
+     * Record the current and following pieces being swapped
+     */
+    public void swap() {
+        event(SWAP);
+    }
+
+    /**
+     * Record the current piece being played
+     * @param x the x coordinate it was played at
+     * @param y the y coordinate it was played at
+     */
+    public void place(int x, int y) {
+        event(PLACE);
+        writeVarLong(x);
+        writeVarLong(y);
+    }
+
+    /**
+     * Record the timer running out
+     */
+    public void timer() {
+        event(TIMER);
+    }
+
+    /**
+     * Start a new event, writing its type and the time since the last event
+     * @param type the type of the event
+     */
+    private void event(int type) {
+        var now = clock.getAsLong();
+        var delta = Math.max(0, now - lastTime);
+        lastTime = now;
+        writeVarLong(delta << TYPE_BITS | type);
+        events++;
+    }
+
+    /**
+     * Append an unsigned varint
+     * @param value the value, treated as unsigned
+     */
+    private void writeVarLong(long value) {
+        if (size + 10 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Get the number of columns of the game
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the game
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the time the game started
+     * @return the start time in ms
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Get the number of events recorded
+     * @return the number of events
+     */
+    public int getEventCount() {
+        return events;
+    }
+
+    /**
+     * Get the size of the encoded events
+     * @return the size in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get a cursor to read the events from the start
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Write the log to a stream
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        writeVarLong(out, VERSION);
+        writeVarLong(out, cols);
+        writeVarLong(out, rows);
+        writeVarLong(out, startTime);
+        writeVarLong(out, events);
+        writeVarLong(out, size);
+        out.write(bytes, 0, size);
+    }
+
+    /**
+     * Write an unsigned varint to a stream
+     * @param out the stream to write to
+     * @param value the value, treated as unsigned
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Read a log written by {@link #writeTo(OutputStream)}
+     * @param in the stream to read from
+     * @return the log
+     * @throws IOException if the stream cannot be read or is not a game log
+     */
+    public static GameLog readFrom(InputStream in) throws IOException {
+        if (!Arrays.equals(in.readNBytes(MAGIC.length), MAGIC)) {
+            throw new IOException("Not a game log");
+        }
+        var version = readVarLong(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported game log version " + version);
+        }
+        var cols = (int) readVarLong(in);
+        var rows = (int) readVarLong(in);
+        var startTime = readVarLong(in);
+        var events = (int) readVarLong(in);
+        var size = (int) readVarLong(in);
+        if (cols < 1 || rows < 1 || events < 0 || size < 0) {
+            throw new IOException("Malformed game log header");
+        }
+
+        var log = new GameLog(cols, rows, startTime, System::currentTimeMillis);
+        log.bytes = in.readNBytes(size);
+        if (log.bytes.length != size) {
+            throw new IOException("Game log is truncated");
+        }
+        log.size = size;
+        log.events = events;
+
+        //walk the events once, so a damaged log is rejected here rather than part way through a replay
+        var read = 0;
+        try {
+            var cursor = log.cursor();
+            while (cursor.next()) {
+                read++;
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage());
+        }
+        if (read != events) {
+            throw new IOException("Game log has " + read + " events, expected " + events);
+        }
+        return log;
+    }
+
+    /**
+     * Read an unsigned varint from a stream
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException if the stream ends before the varint
+     */
+    private static long readVarLong(InputStream in) throws IOException {
+        var value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            var b = in.read();
+            if (b < 0) throw new IOException("Game log is truncated");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in game log");
+    }
+
+    /**
+     * A Cursor reads the events of the log in order, without allocating. After each call to
+     * {@link #next()} the fields describe the event read.
+     */
+    public class Cursor {
+
+        private int position = 0;
+        private long time = startTime;
+        private int type = -1;
+        private long value = 0;
+        private int y = 0;
+
+        /**
+         * Move to the next event
+         * @return if there was another event
+         * @throws IllegalStateException if the log ends part way through the event, or the event
+         *                               is of an unknown type
+         */
+        public boolean next() {
+            if (position >= size) return false;
+            var head = readVarLong();
+            type = (int) (head & ((1 << TYPE_BITS) - 1));
+            time += head >>> TYPE_BITS;
+            switch (type) {
+                case SEED, PIECE, ROTATE -> value = readVarLong();
+                case PLACE -> {
+                    value = readVarLong();
+                    y = (int) readVarLong();
+                }
+                case SWAP, TIMER -> value = 0;
+                default -> throw new IllegalStateException("Unknown event type " + type);
+            }
+            return true;
+        }
+
+        /**
+         * Read an unsigned varint from the log
+         * @return the value
+         * @throws IllegalStateException if the log ends part way through the varint, or it is too
+         *                               long for a long
+         */
+        private long readVarLong() {
+            var result = 0L;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                if (position >= size) throw new IllegalStateException("Game log is truncated");
+                var b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalStateException("Malformed varint in game log");
+        }
+
+        /**
+         * Get the type of the event
+         * @return one of SEED, PIECE, ROTATE, SWAP, PLACE or TIMER
+         */
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * Get the time of the event
+         * @return the time in ms
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Get the seed of a SEED event
+         * @return the seed
+         */
+        public long getSeed() {
+            return value;
+        }
+
+        /**
+         * Get the piece number of a PIECE event
+         * @return the piece number
+         */
+        public int getPiece() {
+            return (int) value;
+        }
+
+        /**
+         * Get the number of rotations of a ROTATE event
+         * @return the rotations to the right
+         */
+        public int getRotations() {
+            return (int) value;
+        }
+
+        /**
+         * Get the x coordinate of a PLACE event
+         * @return column
+         */
+        public int getX() {
+            return (int) value;
+        }
+
+        /**
+         * Get the y coordinate of a PLACE event
+         * @return row
+         */
+        public int getY() {
+            return y;
+        }
+    }
+}
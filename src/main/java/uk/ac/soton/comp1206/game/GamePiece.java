@@ -3,6 +3,10 @@ package uk.ac.soton.comp1206.game;
 /**
  * Instances of GamePiece Represents the model of a specific Game Piece with it's block makeup.
  *
+ * A GamePiece is only a piece type and a rotation. The shapes of every piece in all four rotations are precomputed
+ * once into shared tables: a 3x3 grid of values, a bitmask and a list of block offsets. Rotating a piece only changes
+ * which entry of the tables it points at, so it never allocates.
+ *
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
  * number.
  */
@@ -14,120 +18,107 @@ public class GamePiece {
     public static final int PIECES = 15;
 
     /**
-     * The 2D grid representation of the shape of this piece
+     * The number of distinct rotations of every piece
      */
-    private int[][] blocks;
+    public static final int ROTATIONS = 4;
 
     /**
-     * The value of this piece
+     * The names of the pieces, by piece number
      */
-    private final int value;
+    private static final String[] NAMES = {
+        "Line", "C", "Plus", "Dot", "Square", "L", "J", "S", "Z", "T", "X", "Corner", "Inverse Corner", "Diagonal",
+        "Double"
+    };
 
     /**
-     * The name of this piece
+     * The unrotated shape of every piece, by piece number, as a grid of x then y
      */
-    private final String name;
+    private static final int[][][] SHAPES = {
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}}, //Line
+        {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}}, //C
+        {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}}, //Plus
+        {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}}, //Dot
+        {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}}, //Square
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}}, //L
+        {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}}, //J
+        {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}}, //S
+        {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}}, //Z
+        {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}}, //T
+        {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}}, //X
+        {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}}, //Corner
+        {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}}, //Inverse Corner
+        {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}}, //Diagonal
+        {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}}  //Double
+    };
 
     /**
-     * Create a new GamePiece of the specified piece number
-     * @param piece piece number
-     * @return the created GamePiece
+     * The 3x3 grid of values of every piece and rotation, indexed by piece * ROTATIONS + rotation
      */
-    public static GamePiece createPiece(int piece) {
-        switch (piece) {
-            //Line
-            case 0 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Line", blocks, 1);
-            }
-
-            //C
-            case 1 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
-                return new GamePiece("C", blocks, 2);
-            }
-
-            //Plus
-            case 2 -> {
-                int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
-                return new GamePiece("Plus", blocks, 3);
-            }
-
-            //Dot
-            case 3 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Dot", blocks, 4);
-            }
+    private static final int[][][] BLOCKS = new int[PIECES * ROTATIONS][][];
 
-            //Square
-            case 4 -> {
-                int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Square", blocks, 5);
-            }
-
-            //L
-            case 5 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
-                return new GamePiece("L", blocks, 6);
-            }
-
-            //J
-            case 6 -> {
-                int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("J", blocks, 7);
-            }
-
-            //S
-            case 7 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
-                return new GamePiece("S", blocks, 8);
-            }
-
-            //Z
-            case 8 -> {
-                int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Z", blocks, 9);
-            }
-
-            //T
-            case 9 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("T", blocks, 10);
-            }
+    /**
+     * The bitmask of every piece and rotation, with bit (y * 3 + x) set when the block at x, y is part of the piece
+     */
+    private static final int[] MASKS = new int[PIECES * ROTATIONS];
 
-            //X
-            case 10 -> {
-                int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
-                return new GamePiece("X", blocks, 11);
+    /**
+     * The blocks of every piece and rotation as offsets from the centre, in pairs of x then y
+     */
+    private static final int[][] OFFSETS = new int[PIECES * ROTATIONS][];
+
+    static {
+        for (int piece = 0; piece < PIECES; piece++) {
+            var value = piece + 1;
+            var blocks = new int[3][3];
+            for (int x = 0; x < 3; x++) {
+                for (int y = 0; y < 3; y++) {
+                    blocks[x][y] = SHAPES[piece][x][y] == 0 ? 0 : value;
+                }
             }
-
-            //Corner
-            case 11 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("Corner", blocks, 12);
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                var index = piece * ROTATIONS + rotation;
+                BLOCKS[index] = blocks;
+
+                var mask = 0;
+                var offsets = new int[Integer.bitCount(maskOf(blocks)) * 2];
+                var count = 0;
+                for (int y = 0; y < 3; y++) {
+                    for (int x = 0; x < 3; x++) {
+                        if (blocks[x][y] == 0) continue;
+                        mask |= 1 << (y * 3 + x);
+                        offsets[count++] = x - 1;
+                        offsets[count++] = y - 1;
+                    }
+                }
+                MASKS[index] = mask;
+                OFFSETS[index] = offsets;
+
+                blocks = rotateBlocks(blocks);
             }
+        }
+    }
 
-            //Inverse Corner
-            case 12 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Inverse Corner", blocks, 13);
-            }
+    /**
+     * The number of this piece
+     */
+    private final int piece;
 
-            //Diagonal
-            case 13 -> {
-                int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
-                return new GamePiece("Diagonal", blocks, 14);
-            }
+    /**
+     * The number of times this piece has been rotated to the right, from 0 to 3
+     */
+    private int rotation;
 
-            //Double
-            case 14 -> {
-                int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Double", blocks, 15);
-            }
+    /**
+     * Create a new GamePiece of the specified piece number
+     * @param piece piece number
+     * @return the created GamePiece
+     */
+    public static GamePiece createPiece(int piece) {
+        if (piece < 0 || piece >= PIECES) {
+            //Not a valid piece number
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
         }
-
-        //Not a valid piece number
-        throw new IndexOutOfBoundsException("No such piece: " + piece);
+        return new GamePiece(piece, 0);
     }
 
     /**
@@ -144,24 +135,14 @@ public class GamePiece {
     }
 
     /**
-     * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
+     * Create a new GamePiece with the given piece number and rotation. Should not be called directly, only via the
      * factory.
-     * @param name name of the piece
-     * @param blocks block makeup of the piece
-     * @param value the value of this piece
-     */
-    private GamePiece(String name, int[][] blocks, int value) {
-        this.name = name;
-        this.blocks = blocks;
-        this.value = value;
-
-        //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
-        for(int x = 0; x < blocks.length; x++) {
-            for (int y = 0; y < blocks[x].length; y++) {
-                if(blocks[x][y] == 0) continue;
-                blocks[x][y] = value;
-            }
-        }
+     * @param piece piece number
+     * @param rotation number of times rotated
+     */
+    private GamePiece(int piece, int rotation) {
+        this.piece = piece;
+        this.rotation = rotation;
     }
 
     /**
@@ -169,15 +150,70 @@ public class GamePiece {
      * @return piece value
      */
     public int getValue() {
-        return value;
+        return piece + 1;
+    }
+
+    /**
+     * Get the number of this piece
+     * @return piece number
+     */
+    public int getPiece() {
+        return piece;
+    }
+
+    /**
+     * Get the number of times this piece has been rotated to the right
+     * @return rotation from 0 to 3
+     */
+    public int getRotation() {
+        return rotation;
     }
 
     /**
-     * Get the block makeup of this piece
+     * Get the block makeup of this piece. The grid is shared between all pieces of the same shape and rotation and
+     * must not be modified.
      * @return 2D grid of the blocks representing the piece shape
      */
     public int[][] getBlocks() {
-        return blocks;
+        return BLOCKS[piece * ROTATIONS + rotation];
+    }
+
+    /**
+     * Get the bitmask of this piece, with bit (y * 3 + x) set when the block at x, y is part of the piece
+     * @return the shape mask
+     */
+    public int getMask() {
+        return MASKS[piece * ROTATIONS + rotation];
+    }
+
+    /**
+     * Get the blocks of this piece as offsets from its centre, in pairs of x then y. The array is shared and must not
+     * be modified.
+     * @return the block offsets
+     */
+    public int[] getOffsets() {
+        return OFFSETS[piece * ROTATIONS + rotation];
+    }
+
+    /**
+     * Get the bitmask of a piece in a given rotation
+     * @param piece piece number
+     * @param rotation number of times rotated, from 0 to 3
+     * @return the shape mask
+     */
+    public static int getMask(int piece, int rotation) {
+        return MASKS[piece * ROTATIONS + rotation];
+    }
+
+    /**
+     * Get the blocks of a piece in a given rotation as offsets from its centre, in pairs of x then y. The array is
+     * shared and must not be modified.
+     * @param piece piece number
+     * @param rotation number of times rotated, from 0 to 3
+     * @return the block offsets
+     */
+    public static int[] getOffsets(int piece, int rotation) {
+        return OFFSETS[piece * ROTATIONS + rotation];
     }
 
     /**
@@ -185,40 +221,52 @@ public class GamePiece {
      * @param rotations number of rotations
      */
     public void rotate(int rotations) {
-        for(int rotated = 0; rotated < rotations; rotated ++) {
-            rotate();
-        }
+        rotation = (rotation + rotations) & (ROTATIONS - 1);
     }
 
     /**
-     * Rotate this piece exactly once by rotating it's 3x3 grid
+     * Rotate this piece exactly once to the right
      */
     public void rotate() {
-        int[][] rotated = new int[blocks.length][blocks[0].length];
-        rotated[2][0] = blocks[0][0];
-        rotated[1][0] = blocks[0][1];
-        rotated[0][0] = blocks[0][2];
-
-        rotated[2][1] = blocks[1][0];
-        rotated[1][1] = blocks[1][1];
-        rotated[0][1] = blocks[1][2];
-
-        rotated[2][2] = blocks[2][0];
-        rotated[1][2] = blocks[2][1];
-        rotated[0][2] = blocks[2][2];
+        rotate(1);
+    }
 
-        blocks = rotated;
+    /**
+     * Rotate a 3x3 grid once to the right. Only used to build the tables.
+     * @param blocks the grid to rotate
+     * @return a new rotated grid
+     */
+    private static int[][] rotateBlocks(int[][] blocks) {
+        int[][] rotated = new int[3][3];
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                rotated[2 - y][x] = blocks[x][y];
+            }
+        }
+        return rotated;
     }
 
+    /**
+     * Build the bitmask of a 3x3 grid
+     * @param blocks the grid
+     * @return the mask
+     */
+    private static int maskOf(int[][] blocks) {
+        var mask = 0;
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                if (blocks[x][y] != 0) mask |= 1 << (y * 3 + x);
+            }
+        }
+        return mask;
+    }
 
     /**
      * Return the string representation of this piece
      * @return the name of this piece
      */
     public String toString() {
-        return this.name;
+        return NAMES[piece];
     }
 
-
-
 }
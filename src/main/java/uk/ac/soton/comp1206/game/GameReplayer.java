@@ -0,0 +1,85 @@
+package uk.ac.soton.comp1206.game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The GameReplayer rebuilds the state of a game from its GameLog by playing the recorded moves into
+ * a fresh headless GameEngine, dealing the recorded pieces. There is no clock involved, so a whole
+ * game replays as fast as the engine can play it.
+ */
+public class GameReplayer {
+
+    private static final Logger logger = LogManager.getLogger(GameReplayer.class);
+
+    private final GameLog log;
+
+    /**
+     * The piece numbers dealt in the game, in order
+     */
+    private final int[] pieces;
+
+    /**
+     * Create a new replayer for the given log
+     * @param log the log to replay
+     */
+    public GameReplayer(GameLog log) {
+        this.log = log;
+
+        var count = 0;
+        var cursor = log.cursor();
+        while (cursor.next()) {
+            if (cursor.getType() == GameLog.PIECE) count++;
+        }
+        pieces = new int[count];
+        count = 0;
+        cursor = log.cursor();
+        while (cursor.next()) {
+            if (cursor.getType() == GameLog.PIECE) pieces[count++] = cursor.getPiece();
+        }
+    }
+
+    /**
+     * Replay the whole game
+     * @return an engine in the state the game ended in
+     */
+    public GameEngine replay() {
+        return replay(log.getEventCount());
+    }
+
+    /**
+     * Replay the game up to a given event
+     * @param events the number of events to replay
+     * @return an engine in the state the game was in after those events
+     */
+    public GameEngine replay(int events) {
+        var engine = new GameEngine(log.getCols(), log.getRows(), new ReplayPieceSource(pieces));
+        engine.start();
+
+        var cursor = log.cursor();
+        for (int i = 0; i < events && cursor.next(); i++) {
+            switch (cursor.getType()) {
+                case GameLog.ROTATE -> engine.rotateCurrentPiece(cursor.getRotations());
+                case GameLog.SWAP -> engine.swapCurrentPiece();
+                case GameLog.PLACE -> {
+                    if (!engine.playPiece(cursor.getX(), cursor.getY())) {
+                        logger.error("Recorded move at ({},{}) could not be replayed", cursor.getX(), cursor.getY());
+                    }
+                }
+                case GameLog.TIMER -> engine.timerExpired();
+                default -> {
+                    //the seed and pieces are dealt by the piece source
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Get the log being replayed
+     * @return the game log
+     */
+    public GameLog getLog() {
+        return log;
+    }
+}
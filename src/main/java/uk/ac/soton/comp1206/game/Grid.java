@@ -1,16 +1,22 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
+import java.util.Arrays;
+import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.GridCommitListener;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer
- * values arranged in a 2D arrow, with rows and columns.
+ * values arranged in a 2D array, with rows and columns.
  * <p>
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display
- * of the contents of the grid.
+ * The state is held in primitive form: an occupancy bitboard with one long per row (bit x is set
+ * when column x is occupied) and a byte colour plane with the value of every block. This keeps
+ * placement checks free of any property or listener overhead.
+ * <p>
+ * Changes made to the Grid are tracked as dirty blocks and handed to the commit listener when the
+ * caller commits a move. A GridBinding can be attached as that listener to expose the values as
+ * bindable IntegerProperties.
  * <p>
  * The Grid contains functions related to modifying the model, for example, placing a piece inside
  * the grid.
@@ -18,24 +24,59 @@ import org.apache.logging.log4j.Logger;
  * The Grid should be linked to a GameBoard for it's display.
  */
 public class Grid {
-    
+
     private static final Logger logger = LogManager.getLogger(Grid.class);
-    
+
+    /**
+     * The maximum number of columns a grid can have, as each row is packed into a single long
+     */
+    public static final int MAX_COLS = Long.SIZE;
+
     /**
      * The number of columns in this grid
      */
     private final int cols;
-    
+
     /**
      * The number of rows in this grid
      */
     private final int rows;
-    
+
+    /**
+     * The occupancy bitboard, one long per row with bit x set when column x holds a block
+     */
+    private final long[] occupied;
+
+    /**
+     * The colour plane, holding the value of every block at index y * cols + x
+     */
+    private final byte[] values;
+
+    /**
+     * The blocks changed since the last commit, one long per row like the occupancy bitboard
+     */
+    private final long[] dirty;
+
+    /**
+     * The number of occupied blocks in every row
+     */
+    private final int[] rowCounts;
+
+    /**
+     * The number of occupied blocks in every column
+     */
+    private final int[] colCounts;
+
+    /**
+     * The occupancy of a full row
+     */
+    private final long fullRow;
+
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The listener to call when a move is committed
      */
-    private final SimpleIntegerProperty[][] grid;
-    
+    private GridCommitListener commitListener;
+
     /**
      * Create a new Grid with the specified number of columns and rows and initialise them
      *
@@ -43,60 +84,117 @@ public class Grid {
      * @param rows number of rows
      */
     public Grid(int cols, int rows) {
+        if (cols < 1 || cols > MAX_COLS || rows < 1) {
+            throw new IllegalArgumentException("Unsupported grid size: " + cols + " x " + rows);
+        }
         this.cols = cols;
         this.rows = rows;
-        
-        //Create the grid itself
-        grid = new SimpleIntegerProperty[cols][rows];
-        
-        //Add a SimpleIntegerProperty to every block in the grid
-        for (var y = 0; y < rows; y++) {
-            for (var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
-            }
-        }
-    }
-    
-    /**
-     * Get the Integer property contained inside the grid at a given row and column index. Can be used
-     * for binding.
-     *
-     * @param x column
-     * @param y row
-     * @return the IntegerProperty at the given x and y in this grid
-     */
-    public IntegerProperty getGridProperty(int x, int y) {
-        return grid[x][y];
+
+        //Create the grid itself, every block starts empty
+        occupied = new long[rows];
+        values = new byte[cols * rows];
+        dirty = new long[rows];
+        rowCounts = new int[rows];
+        colCounts = new int[cols];
+        fullRow = cols == MAX_COLS ? -1L : (1L << cols) - 1;
     }
-    
+
     /**
      * Update the value at the given x and y index within the grid
      *
      * @param x     column
      * @param y     row
      * @param value the new value
+     * @throws IndexOutOfBoundsException if the index is outside the grid
      */
     public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+        //checked before anything changes, so the colour plane, bitboard and counts stay in step
+        Objects.checkIndex(x, cols);
+        Objects.checkIndex(y, rows);
+        var index = y * cols + x;
+        var oldValue = values[index];
+        if (oldValue == value) return;
+
+        values[index] = (byte) value;
+        var bit = 1L << x;
+        if (oldValue == 0) {
+            occupied[y] |= bit;
+            rowCounts[y]++;
+            colCounts[x]++;
+        } else if (value == 0) {
+            occupied[y] &= ~bit;
+            rowCounts[y]--;
+            colCounts[x]--;
+        }
+        dirty[y] |= bit;
     }
-    
+
     /**
      * Get the value represented at the given x and y index within the grid
      *
      * @param x column
      * @param y row
-     * @return the value
+     * @return the value, or -1 if the index is outside the grid
      */
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
             //No such index
             return -1;
         }
+        return values[y * cols + x];
+    }
+
+    /**
+     * Get the occupancy of a row, with bit x set when column x holds a block
+     *
+     * @param y row
+     * @return the occupancy bits of the row
+     */
+    public long getRow(int y) {
+        return occupied[y];
+    }
+
+    /**
+     * Get the blocks of a row which have changed since the last commit, with bit x set when column
+     * x has changed
+     *
+     * @param y row
+     * @return the dirty bits of the row
+     */
+    public long getDirtyRow(int y) {
+        return dirty[y];
+    }
+
+    /**
+     * Check whether every block of a row is occupied
+     *
+     * @param y row
+     * @return if the row is full
+     */
+    public boolean isRowFull(int y) {
+        return rowCounts[y] == cols;
     }
-    
+
+    /**
+     * Check whether every block of a column is occupied
+     *
+     * @param x column
+     * @return if the column is full
+     */
+    public boolean isColumnFull(int x) {
+        return colCounts[x] == rows;
+    }
+
+    /**
+     * Get the number of occupied blocks in a column
+     *
+     * @param x column
+     * @return the number of blocks in the column
+     */
+    public int getColumnCount(int x) {
+        return colCounts[x];
+    }
+
     /**
      * Get the number of columns in this game
      *
@@ -105,7 +203,7 @@ public class Grid {
     public int getCols() {
         return cols;
     }
-    
+
     /**
      * Get the number of rows in this game
      *
@@ -114,7 +212,29 @@ public class Grid {
     public int getRows() {
         return rows;
     }
-    
+
+    /**
+     * Set the listener to call when a move is committed
+     *
+     * @param listener the listener to set
+     */
+    public void setOnCommit(GridCommitListener listener) {
+        commitListener = listener;
+    }
+
+    /**
+     * Commit all the changes made since the last commit. The commit listener is told about the
+     * dirty blocks, which are then cleared.
+     */
+    public void commit() {
+        if (commitListener != null) {
+            commitListener.gridCommitted(this);
+        }
+        for (int y = 0; y < rows; y++) {
+            dirty[y] = 0;
+        }
+    }
+
     /**
      * Returns true if the piece can be played at a certain coordinate
      *
@@ -124,24 +244,84 @@ public class Grid {
      * @return if the piece can be played
      */
     public Boolean canPlayPiece(GamePiece piece, int x, int y) {
-        logger.info("checking if {} can be played piece in coordinates ({},{})", piece, x, y);
-        var blocks = piece.getBlocks();
-        for (int pieceY = 0; pieceY < blocks.length; pieceY++) {
-            for (int pieceX = 0; pieceX < blocks[pieceY].length; pieceX++) {
-                if (blocks[pieceX][pieceY] > 0) {
-                    int gridX = x + pieceX - 1; //calculating the grid coordinates
-                    int gridY = y + pieceY - 1;
-                    if (get(gridX, gridY) != 0) {
-                        logger.info("unable to place piece");
-                        return false;
-                    }
+        var mask = piece.getMask();
+        for (int pieceY = 0; pieceY < 3; pieceY++) {
+            var pieceRow = (mask >>> (pieceY * 3)) & 0b111; //the blocks of the piece in this row
+            if (pieceRow == 0) continue;
+            if (!fitsRow(pieceRow, x, y + pieceY - 1)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find every legal placement of a piece, in all of its rotations
+     *
+     * @param piece the piece number
+     * @return a new index of the legal placements
+     */
+    public PlacementIndex legalPlacements(int piece) {
+        var index = new PlacementIndex(cols, rows);
+        legalPlacements(piece, index);
+        return index;
+    }
+
+    /**
+     * Find every legal placement of a piece, in all of its rotations, without allocating
+     * <p>
+     * Each row of the shape mask is shifted against the occupancy of the grid row it would cover,
+     * so a whole row of centres is checked at once.
+     *
+     * @param piece the piece number
+     * @param index the index to fill, which must be for a grid of this size
+     */
+    public void legalPlacements(int piece, PlacementIndex index) {
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            var mask = GamePiece.getMask(piece, rotation);
+            for (int y = 0; y < rows; y++) {
+                var blocked = 0L;
+                for (int pieceY = 0; pieceY < 3; pieceY++) {
+                    var pieceRow = (mask >>> (pieceY * 3)) & 0b111;
+                    if (pieceRow != 0) blocked |= blockedCentres(pieceRow, y + pieceY - 1);
                 }
+                index.setRow(rotation, y, ~blocked & fullRow);
             }
         }
-        logger.info("piece can be played");
-        return true;
     }
-    
+
+    /**
+     * Find the centres at which a row of a piece would not fit into a row of the grid
+     *
+     * @param pieceRow the three blocks of the piece row, bit 0 being one column left of the centre
+     * @param y        the row of the grid
+     * @return the blocked centres, bit x set when the piece row does not fit centred on x
+     */
+    private long blockedCentres(int pieceRow, int y) {
+        if (y < 0 || y >= rows) return fullRow;
+        var row = occupied[y];
+        var blocked = 0L;
+        if ((pieceRow & 0b001) != 0) blocked |= (row << 1) | 1L; //block to the left, off the grid at x = 0
+        if ((pieceRow & 0b010) != 0) blocked |= row;
+        if ((pieceRow & 0b100) != 0) blocked |= (row >>> 1) | (1L << (cols - 1)); //block to the right
+        return blocked;
+    }
+
+    /**
+     * Check whether a row of a piece fits into a row of the grid
+     *
+     * @param pieceRow the three blocks of the piece row, bit 0 being one column left of the centre
+     * @param x        the column of the centre of the piece
+     * @param y        the row of the grid
+     * @return if every block of the piece row is on the grid and empty
+     */
+    private boolean fitsRow(int pieceRow, int x, int y) {
+        if (y < 0 || y >= rows) return false;
+        var left = x - 1; //the column of bit 0 of the piece row
+        if (left + Integer.numberOfTrailingZeros(pieceRow) < 0) return false; //off the left edge
+        if (left + 31 - Integer.numberOfLeadingZeros(pieceRow) >= cols) return false; //off the right edge
+        var blocks = left < 0 ? (long) pieceRow >>> -left : (long) pieceRow << left;
+        return (occupied[y] & blocks) == 0;
+    }
+
     /**
      * plays the current piece onto the board
      *
@@ -150,16 +330,70 @@ public class Grid {
      * @param y     the y coordinate of the clicked block
      */
     public void playPiece(GamePiece piece, int x, int y) {
-        logger.info("playing the piece {} in coordinates ({},{})", piece, x, y);
-        var blocks = piece.getBlocks();
-        for (int pieceY = 0; pieceY < blocks.length; pieceY++) {
-            for (int pieceX = 0; pieceX < blocks[pieceY].length; pieceX++) {
-                if (blocks[pieceX][pieceY] > 0) {
-                    int gridX = x + pieceX - 1; //calculating the grid coordinates
-                    int gridY = y + pieceY - 1;
-                    set(gridX, gridY, blocks[pieceX][pieceY]);
-                }
+        logger.debug("playing the piece {} in coordinates ({},{})", piece, x, y);
+        var offsets = piece.getOffsets();
+        var value = piece.getValue();
+        for (int i = 0; i < offsets.length; i += 2) {
+            set(x + offsets[i], y + offsets[i + 1], value);
+        }
+    }
+
+    /**
+     * Clear every full row and column passing through the 3x3 area centred on the given
+     * coordinates, which is where a piece has just been played. Lines outside that area cannot
+     * have been filled by the piece, so they are not checked, and if none of the lines through it
+     * are full nothing else is touched.
+     *
+     * @param x       the x coordinate the piece was played at
+     * @param y       the y coordinate the piece was played at
+     * @param cleared filled with the blocks cleared, one long per row with bit x set for every
+     *                cleared column. Only written when a line is cleared.
+     * @return the number of lines cleared
+     */
+    public int clearLines(int x, int y, long[] cleared) {
+        var minX = Math.max(x - 1, 0);
+        var maxX = Math.min(x + 1, cols - 1);
+        var minY = Math.max(y - 1, 0);
+        var maxY = Math.min(y + 1, rows - 1);
+
+        //checking rows, bit (row - minY) set for every full row
+        var fullRows = 0;
+        for (int row = minY; row <= maxY; row++) {
+            if (isRowFull(row)) fullRows |= 1 << (row - minY);
+        }
+        //checking columns
+        var fullColumns = 0L;
+        for (int col = minX; col <= maxX; col++) {
+            if (isColumnFull(col)) fullColumns |= 1L << col;
+        }
+        if (fullRows == 0 && fullColumns == 0) return 0;
+
+        Arrays.fill(cleared, 0);
+        if (fullColumns != 0) {
+            //a full column passes through every row
+            for (int row = 0; row < rows; row++) {
+                cleared[row] = fullColumns;
+                clearBlocks(row, fullColumns);
             }
         }
+        for (int rowBits = fullRows; rowBits != 0; rowBits &= rowBits - 1) {
+            var row = minY + Integer.numberOfTrailingZeros(rowBits);
+            clearBlocks(row, fullRow & ~cleared[row]);
+            cleared[row] = fullRow;
+        }
+        return Integer.bitCount(fullRows) + Long.bitCount(fullColumns);
+    }
+
+    /**
+     * Empty some of the blocks of a row
+     *
+     * @param y      row
+     * @param blocks the blocks to empty, bit x set for column x
+     */
+    private void clearBlocks(int y, long blocks) {
+        while (blocks != 0) {
+            set(Long.numberOfTrailingZeros(blocks), y, 0);
+            blocks &= blocks - 1;
+        }
     }
 }
@@ -0,0 +1,77 @@
+package uk.ac.soton.comp1206.game;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The GridBinding is an opt-in JavaFX view of a Grid. It holds an IntegerProperty for every block
+ * which can be bound to, for example by a GameBoard.
+ * <p>
+ * The properties are not updated on every change to the grid, only the dirty blocks are synced
+ * once the grid commits a move.
+ */
+public class GridBinding {
+
+    private static final Logger logger = LogManager.getLogger(GridBinding.class);
+
+    /**
+     * The grid this binding is a view of
+     */
+    private final Grid grid;
+
+    /**
+     * The properties of every block in the grid, in columns and rows
+     */
+    private final SimpleIntegerProperty[][] properties;
+
+    /**
+     * Create a new binding of the given grid and attach it to the grid's commits
+     *
+     * @param grid the grid to bind to
+     */
+    public GridBinding(Grid grid) {
+        logger.info("Creating a binding for a {} x {} grid", grid.getCols(), grid.getRows());
+        this.grid = grid;
+
+        var cols = grid.getCols();
+        var rows = grid.getRows();
+        properties = new SimpleIntegerProperty[cols][rows];
+
+        //Add a SimpleIntegerProperty to every block with its current value
+        for (var y = 0; y < rows; y++) {
+            for (var x = 0; x < cols; x++) {
+                properties[x][y] = new SimpleIntegerProperty(grid.get(x, y));
+            }
+        }
+
+        grid.setOnCommit(committed -> sync());
+    }
+
+    /**
+     * Get the Integer property of the block at a given row and column index. Can be used for
+     * binding.
+     *
+     * @param x column
+     * @param y row
+     * @return the IntegerProperty at the given x and y in the grid
+     */
+    public IntegerProperty getGridProperty(int x, int y) {
+        return properties[x][y];
+    }
+
+    /**
+     * Update the properties of every dirty block in the grid with its current value
+     */
+    public void sync() {
+        for (int y = 0; y < grid.getRows(); y++) {
+            var changed = grid.getDirtyRow(y);
+            while (changed != 0) {
+                var x = Long.numberOfTrailingZeros(changed);
+                properties[x][y].set(grid.get(x, y));
+                changed &= changed - 1;
+            }
+        }
+    }
+}
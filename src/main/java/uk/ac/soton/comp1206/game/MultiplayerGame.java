@@ -1,11 +1,9 @@
 package uk.ac.soton.comp1206.game;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import org.apache.logging.log4j.LogManager;
@@ -14,6 +12,11 @@ import uk.ac.soton.comp1206.dataStructure.Triplet;
 import uk.ac.soton.comp1206.event.ChangedScoresListener;
 import uk.ac.soton.comp1206.event.MessageListener;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.Subscription;
+import uk.ac.soton.comp1206.network.ServerMessage.ChatMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ConnectionMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PieceMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ScoresMsg;
 
 /**
  * The MultiplayerGame handles the main logic, state and properties of the TetrECS Multiplayer Game.
@@ -24,11 +27,22 @@ public class MultiplayerGame extends Game {
     private static final Logger logger = LogManager.getLogger(MultiplayerGame.class);
     private Timer scoresTimer;
     private Communicator communicator;
-    private Queue<GamePiece> pieceQueue;
+    private NetworkPieceSource pieceSource;
     private SimpleListProperty<Triplet<String, String, Integer>> playersData;
+    /**
+     * The subscriptions to the pieces, chat messages, scores and reconnections, removed when the
+     * game ends
+     */
+    private Subscription<PieceMsg> pieceSubscription;
+    private Subscription<ChatMsg> chatSubscription;
+    private Subscription<ScoresMsg> scoresSubscription;
+    private Subscription<ConnectionMsg> connectionSubscription;
     private MessageListener messageListener;
     private ChangedScoresListener scoresListener;
-    private Object eventKey = new Object();
+    /**
+     * Whether DIE has been sent, after which the lives are no longer sent
+     */
+    private boolean died = false;
     
     /**
      * Create a new game with the specified rows and columns. Creates a corresponding grid model.
@@ -37,20 +51,35 @@ public class MultiplayerGame extends Game {
      * @param rows number of rows
      */
     public MultiplayerGame(int cols, int rows) {
-        super(cols, rows);
+        this(cols, rows, new NetworkPieceSource(Communicator.getCommunicator().getSendQueue()));
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, getting its pieces from the given
+     * network source
+     *
+     * @param cols        number of columns
+     * @param rows        number of rows
+     * @param pieceSource the source of the pieces sent by the server
+     */
+    private MultiplayerGame(int cols, int rows, NetworkPieceSource pieceSource) {
+        super(cols, rows, pieceSource);
+        this.pieceSource = pieceSource;
         communicator = Communicator.getCommunicator();
-        communicator.addListener(this::receiveCommunication);
+        pieceSubscription = communicator.addListener(PieceMsg.class,
+            message -> pieceSource.receivePiece(message.piece()));
+        chatSubscription = communicator.addListener(ChatMsg.class,
+            message -> messageListener.receiveMessage(message.user(), message.text()));
+        scoresSubscription = communicator.addListener(ScoresMsg.class, this::handleScores);
+        //pieces requested before a dropped connection are requested again
+        connectionSubscription = communicator.addListener(ConnectionMsg.class, message -> {
+            if (message.resumed()) pieceSource.reconnected();
+        });
+        pieceSource.prefetch();
     
         var tripletsArray = new ArrayList<Triplet<String, String, Integer>>();
         var observableTriplets = FXCollections.observableArrayList(tripletsArray);
         playersData = new SimpleListProperty<>(observableTriplets);
-        
-        pieceQueue = new LinkedList<>();
-    
-        //Populate the queue
-        for (int i = 0; i < 5; i++) {
-            requestNextPiece();
-        }
     
         scoresTimer = new Timer("ScoresTimerThread");
         var task = new TimerTask() {
@@ -67,55 +96,21 @@ public class MultiplayerGame extends Game {
     }
     
     /**
-     * Overrides the spawnPiece method to get the next piece from the queue
-     * @return the next piece in the queue
-     */
-    @Override
-    public GamePiece spawnPiece() {
-        if (pieceQueue.isEmpty()) {
-            requestNextPiece();
-            Platform.enterNestedEventLoop(eventKey);
-        }
-        return pieceQueue.remove();
-    }
-    
-    /**
-     * Replaces the current GamePiece with a new GamePiece
-     * Requests the next piece from the communicator
-     */
-    @Override
-    public void nextPiece() {
-        requestNextPiece();
-        super.nextPiece();
-    }
-    
-    /**
-     * Adds the given piece to the pieceQueue
-     * @param stringValue the String representation of the Piece
-     */
-    private void queuePiece(String stringValue) {
-        var value = Integer.parseInt(stringValue);
-        var piece = GamePiece.createPiece(value);
-        logger.info("Adding {} piece to queue", piece);
-        pieceQueue.add(piece);
-        try {
-            Platform.exitNestedEventLoop(eventKey, null);
-        } catch (IllegalArgumentException e) {
-            logger.info("No nested loop");
-        }
-    }
-    
-    /**
-     * logic to handle what happens after a GamePiece has been placed Clearing lines
+     * Play the current piece with its centre at the given coordinates, if it fits
+     * Sends the new score to the communicator if it has changed
+     * @param x column
+     * @param y row
+     * @return if the piece was played or not
      */
     @Override
-    public void afterPiece() {
+    public Boolean playPiece(int x, int y) {
         var scoreBefore = score.get();
-        super.afterPiece();
+        var played = super.playPiece(x, y);
         var scoreAfter = score.get();
         if (scoreBefore != scoreAfter) {
             sendNewScore(score.getValue());
         }
+        return played;
     }
     
     /**
@@ -133,7 +128,8 @@ public class MultiplayerGame extends Game {
     @Override
     protected void gameLoop() {
         super.gameLoop();
-        sendNewLives(lives.getValue());
+        //the timeout may have ended the game, and DIE has been sent already
+        if (!died) sendNewLives(lives.getValue());
     }
     
     /**
@@ -151,7 +147,13 @@ public class MultiplayerGame extends Game {
     public void endGame() {
         logger.info("Sending DIE protocol");
         communicator.send("DIE");
+        died = true;
         stopScoresTimer();
+        //the scores stop being polled here, so the results show the last scores received
+        pieceSubscription.unsubscribe();
+        chatSubscription.unsubscribe();
+        scoresSubscription.unsubscribe();
+        connectionSubscription.unsubscribe();
         super.endGame();
     }
     
@@ -163,13 +165,6 @@ public class MultiplayerGame extends Game {
         scoresTimer = null;
     }
     
-    /**
-     * Method to request a new piece from the communicator
-     */
-    private void requestNextPiece() {
-        communicator.send("PIECE");
-    }
-    
     /**
      * Method to request the scores of all the players in the lobby
      */
@@ -177,21 +172,6 @@ public class MultiplayerGame extends Game {
         communicator.send("SCORES");
     }
     
-    /**
-     * Method to handle all the incoming communications from the communicator
-     * @param message the message from the communicator
-     */
-    private void receiveCommunication(String message) {
-        var components = message.split(" ");
-        var type = components[0];
-        var content = components[1];
-        switch (type) {
-            case "PIECE" -> Platform.runLater(() -> queuePiece(content));
-            case "MSG" -> Platform.runLater(() -> messageListener.receiveMessage(content));
-            case "SCORES" -> Platform.runLater(() -> handleScores(content));
-        }
-    }
-    
     /**
      * Method to set a listener for messages
      * @param listener the listener to set
@@ -218,19 +198,11 @@ public class MultiplayerGame extends Game {
     
     /**
      * Method to handle incoming SCORES communications
-     * Adds the data into the playersData List
-     * @param message the message with the data
-     */
-    private void handleScores(String message) {
-        var lines = message.split("\n");
-        playersData.clear();
-        for (var line : lines) {
-            var data = line.split(":");
-            var name = data[0];
-            var score = Integer.parseInt(data[1]);
-            var lives = data[2];
-            playersData.add(new Triplet<>(name, lives, score));
-        }
+     * Replaces the data in the playersData List
+     * @param message the parsed SCORES message
+     */
+    private void handleScores(ScoresMsg message) {
+        playersData.setAll(message.players());
         scoresListener.updateScores();
     }
     
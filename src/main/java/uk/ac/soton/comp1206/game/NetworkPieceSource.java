@@ -0,0 +1,298 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.PieceArrivedListener;
+import uk.ac.soton.comp1206.network.SendQueue;
+
+/**
+ * The NetworkPieceSource deals the pieces sent by the server in a multiplayer game, so every player
+ * gets the same sequence.
+ * <p>
+ * Pieces are requested ahead of time. How many are kept queued or on their way adapts to the
+ * measured round trip to the server and how fast the player is placing pieces, so the queue should
+ * not run dry even on a slow connection.
+ * <p>
+ * If it does run dry, a placeholder piece is dealt straight away rather than waiting. The
+ * placeholder cannot be played, and when the piece the server sends for it arrives, the
+ * {@link PieceArrivedListener} is told to put the real piece in its place.
+ * <p>
+ * It must be used on the JavaFX thread.
+ */
+public class NetworkPieceSource implements PieceSource {
+
+    private static final Logger logger = LogManager.getLogger(NetworkPieceSource.class);
+
+    /**
+     * The number of pieces to request before the game starts
+     */
+    public static final int PREFETCH = 5;
+
+    /**
+     * The fewest pieces kept queued or on their way
+     */
+    private static final int MIN_LOW_WATER = 3;
+
+    /**
+     * The most pieces kept queued or on their way
+     */
+    private static final int MAX_LOW_WATER = 20;
+
+    /**
+     * How much of each new measurement goes into the round trip and placement averages
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The shortest time between pieces counted, so the pieces dealt together at the start or after
+     * the timer runs out do not look like a player placing pieces impossibly fast
+     */
+    private static final long MIN_DEAL_INTERVAL = 250_000_000L;
+
+    /**
+     * The queue piece requests are sent through
+     */
+    private final SendQueue sendQueue;
+
+    /**
+     * The clock requests and deals are timed with, in nanoseconds
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The pieces which have arrived but not been dealt
+     */
+    private final Queue<GamePiece> pieceQueue = new ArrayDeque<>();
+
+    /**
+     * The placeholders dealt while the queue was empty, oldest first, each waiting for the next
+     * piece to arrive
+     */
+    private final ArrayDeque<GamePiece> placeholders = new ArrayDeque<>();
+
+    /**
+     * When each piece still on its way was requested, oldest first, in nanoseconds
+     */
+    private final ArrayDeque<Long> requestTimes = new ArrayDeque<>();
+
+    /**
+     * The average round trip of a piece request, in nanoseconds
+     */
+    private double roundTrip = -1;
+
+    /**
+     * The average time between pieces being dealt, in nanoseconds
+     */
+    private double dealInterval = -1;
+
+    /**
+     * When the last piece was dealt, or 0 if none has been
+     */
+    private long lastDeal;
+
+    /**
+     * The number of pieces to keep queued or on their way
+     */
+    private int lowWater = PREFETCH;
+
+    /**
+     * The number of PIECE requests the send queue had sent before this source was made
+     */
+    private final long piecesSentBefore;
+
+    /**
+     * The number of pieces received from the server
+     */
+    private long piecesReceived;
+
+    /**
+     * The number of requests given up on because the connection was lost before their reply
+     */
+    private long piecesLost;
+
+    private PieceArrivedListener pieceArrivedListener;
+
+    /**
+     * Create a new source which requests pieces through the given send queue, timed with the
+     * system clock
+     * @param sendQueue the queue to send piece requests through
+     */
+    public NetworkPieceSource(SendQueue sendQueue) {
+        this(sendQueue, System::nanoTime);
+    }
+
+    /**
+     * Create a new source which requests pieces through the given send queue, timed with the given
+     * clock
+     * @param sendQueue the queue to send piece requests through
+     * @param clock the clock to time requests and deals with, in nanoseconds
+     */
+    public NetworkPieceSource(SendQueue sendQueue, LongSupplier clock) {
+        this.sendQueue = sendQueue;
+        this.clock = clock;
+        piecesSentBefore = sendQueue.getPiecesSent();
+    }
+
+    /**
+     * Set the listener to tell when a piece arrives for a placeholder
+     * @param listener the listener
+     */
+    public void setOnPieceArrived(PieceArrivedListener listener) {
+        pieceArrivedListener = listener;
+    }
+
+    /**
+     * Request the first few pieces in advance, once something is listening for them
+     */
+    public void prefetch() {
+        topUp();
+    }
+
+    /**
+     * Get the next piece in the queue, or a placeholder if it has not arrived yet.
+     * Requests more pieces if the queue is getting low.
+     * @return the next piece
+     */
+    @Override
+    public GamePiece nextPiece() {
+        var now = clock.getAsLong();
+        if (lastDeal != 0) {
+            dealInterval = average(dealInterval, Math.max(MIN_DEAL_INTERVAL, now - lastDeal));
+            updateLowWater();
+        }
+        lastDeal = now;
+
+        GamePiece piece;
+        if (pieceQueue.isEmpty()) {
+            logger.info("No piece has arrived yet, dealing a placeholder");
+            piece = GamePiece.createPiece(0);
+            placeholders.add(piece);
+        } else {
+            piece = pieceQueue.remove();
+        }
+        topUp();
+        return piece;
+    }
+
+    /**
+     * Check whether a piece is a placeholder which is still waiting for its piece to arrive
+     * @param piece the piece
+     * @return if the piece is a placeholder
+     */
+    @Override
+    public boolean isPending(GamePiece piece) {
+        for (var placeholder : placeholders) {
+            if (placeholder == piece) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add a piece sent by the server to the queue, or put it in place of the oldest placeholder.
+     * Called on the JavaFX thread.
+     * @param value the piece number
+     */
+    public void receivePiece(int value) {
+        piecesReceived++;
+        var sent = requestTimes.poll();
+        if (sent != null) {
+            roundTrip = average(roundTrip, clock.getAsLong() - sent);
+            updateLowWater();
+        }
+
+        var piece = GamePiece.createPiece(value);
+        var placeholder = placeholders.poll();
+        if (placeholder == null) {
+            logger.debug("Adding {} piece to queue", piece);
+            pieceQueue.add(piece);
+        } else {
+            logger.debug("{} piece arrived for a placeholder", piece);
+            if (pieceArrivedListener != null) pieceArrivedListener.pieceArrived(placeholder, piece);
+        }
+        topUp();
+    }
+
+    /**
+     * Handle the communicator reconnecting after the connection was lost. The requests which had
+     * been sent but not answered when it was lost will not be answered, so they are forgotten and
+     * requested again. Requests which were still queued are sent on the new connection, so they are
+     * kept.
+     * <p>
+     * Replies are handled on the JavaFX thread in the order they arrived, and this is called there
+     * before anything from the new connection, so every reply counted so far was to a request sent
+     * before the connection was lost. The requests are answered in order, so the lost ones are the
+     * oldest still waiting.
+     */
+    public void reconnected() {
+        var sent = sendQueue.getPiecesSentBeforeDisconnect() - piecesSentBefore;
+        var lost = (int) Math.min(requestTimes.size(), Math.max(0, sent - piecesReceived - piecesLost));
+        logger.info("Reconnected, requesting the {} pieces which were on their way again", lost);
+        for (int i = 0; i < lost; i++) {
+            requestTimes.remove();
+        }
+        piecesLost += lost;
+        topUp();
+    }
+
+    /**
+     * Work out how many pieces to keep queued or on their way: enough to cover the pieces dealt
+     * during a round trip, with one to spare
+     */
+    private void updateLowWater() {
+        if (roundTrip < 0 || dealInterval <= 0) return;
+        var needed = (int) Math.ceil(roundTrip / dealInterval) + 1;
+        var clamped = Math.max(MIN_LOW_WATER, Math.min(MAX_LOW_WATER, needed));
+        if (clamped != lowWater) {
+            logger.debug("Keeping {} pieces ahead, round trip {}ms", clamped, (long) (roundTrip / 1e6));
+            lowWater = clamped;
+        }
+    }
+
+    /**
+     * Request pieces until enough are queued or on their way. Pieces on their way for placeholders
+     * do not count.
+     */
+    private void topUp() {
+        while (getPiecesAhead() < lowWater) {
+            requestPiece();
+        }
+    }
+
+    /**
+     * Request a new piece from the server
+     */
+    private void requestPiece() {
+        requestTimes.add(clock.getAsLong());
+        sendQueue.send("PIECE");
+    }
+
+    /**
+     * Add a measurement to a moving average
+     * @param average the average so far, or a negative number if there is none
+     * @param sample the measurement
+     * @return the new average
+     */
+    private static double average(double average, long sample) {
+        return average < 0 ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    /**
+     * Get the number of pieces currently kept queued or on their way
+     * @return the low-water mark
+     */
+    public int getLowWater() {
+        return lowWater;
+    }
+
+    /**
+     * Get the number of pieces queued or on their way, not counting those on their way for
+     * placeholders. This is kept at least at the low-water mark.
+     * @return the number of pieces ahead
+     */
+    public int getPiecesAhead() {
+        return pieceQueue.size() + requestTimes.size() - placeholders.size();
+    }
+}
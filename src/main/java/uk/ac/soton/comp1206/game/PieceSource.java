@@ -0,0 +1,23 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PieceSource is where a game gets its new pieces from. It is injected into the Game and its
+ * GameEngine, so the same rules can be played with random, seeded, replayed or network pieces.
+ */
+public interface PieceSource {
+
+    /**
+     * Get the next piece to deal
+     * @return the next piece
+     */
+    public GamePiece nextPiece();
+
+    /**
+     * Check whether a piece dealt by this source is a placeholder which cannot be played yet
+     * @param piece the piece
+     * @return if the piece is a placeholder
+     */
+    public default boolean isPending(GamePiece piece) {
+        return false;
+    }
+}
@@ -0,0 +1,130 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PlacementIndex holds every legal placement of a piece on a grid, across all of its rotations.
+ * <p>
+ * It is a compact bitset with one long per rotation and row, bit x being set when the piece can be
+ * played with its centre at x, y in that rotation. It is filled by
+ * {@link Grid#legalPlacements(int, PlacementIndex)} and can be reused for the same grid size.
+ */
+public class PlacementIndex {
+
+    /**
+     * The number of columns of the grid this index is for
+     */
+    private final int cols;
+
+    /**
+     * The number of rows of the grid this index is for
+     */
+    private final int rows;
+
+    /**
+     * The legal placements, indexed by rotation * rows + y
+     */
+    private final long[] legal;
+
+    /**
+     * Create a new empty index for a grid of the given size
+     *
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public PlacementIndex(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.legal = new long[GamePiece.ROTATIONS * rows];
+    }
+
+    /**
+     * Set the legal placements of a row in a rotation. Used by the grid to fill the index.
+     *
+     * @param rotation the rotation
+     * @param y        row
+     * @param row      the legal centres of the row
+     */
+    void setRow(int rotation, int y, long row) {
+        legal[rotation * rows + y] = row;
+    }
+
+    /**
+     * Get the legal placements of a row in a rotation
+     *
+     * @param rotation the rotation, from 0 to 3
+     * @param y        row
+     * @return the row bits, bit x set when the piece can be played centred on x, y
+     */
+    public long getRow(int rotation, int y) {
+        return legal[rotation * rows + y];
+    }
+
+    /**
+     * Check whether the piece can be played with its centre at the given coordinates
+     *
+     * @param x        column
+     * @param y        row
+     * @param rotation the rotation, from 0 to 3
+     * @return if the placement is legal
+     */
+    public boolean isLegal(int x, int y, int rotation) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) return false;
+        return (legal[rotation * rows + y] >>> x & 1) != 0;
+    }
+
+    /**
+     * Count the legal placements in one rotation
+     *
+     * @param rotation the rotation, from 0 to 3
+     * @return the number of legal placements
+     */
+    public int count(int rotation) {
+        var count = 0;
+        for (int y = 0; y < rows; y++) {
+            count += Long.bitCount(legal[rotation * rows + y]);
+        }
+        return count;
+    }
+
+    /**
+     * Count the legal placements across all rotations
+     *
+     * @return the number of legal placements
+     */
+    public int count() {
+        var count = 0;
+        for (var row : legal) {
+            count += Long.bitCount(row);
+        }
+        return count;
+    }
+
+    /**
+     * Check whether there are no legal placements in any rotation
+     *
+     * @return if the piece cannot be played anywhere
+     */
+    public boolean isEmpty() {
+        for (var row : legal) {
+            if (row != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of columns of the grid this index is for
+     *
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the grid this index is for
+     *
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,72 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.ArrayList;
+
+/**
+ * The ReplayPieceSource deals a recorded sequence of pieces, in order, so a previous game can be
+ * played back exactly.
+ * <p>
+ * A multiplayer game can end while pieces it asked the server for have not arrived, and those are
+ * never recorded. Once the recorded pieces run out, placeholders are dealt in their place, just as
+ * they were in the game, so the replay carries on to the end of the log.
+ */
+public class ReplayPieceSource implements PieceSource {
+
+    /**
+     * The piece numbers to deal
+     */
+    private final int[] pieces;
+
+    /**
+     * The index of the next piece to deal
+     */
+    private int next = 0;
+
+    /**
+     * The placeholders dealt after the recorded pieces ran out
+     */
+    private final ArrayList<GamePiece> placeholders = new ArrayList<>();
+
+    /**
+     * Create a new source which deals the given pieces
+     * @param pieces the piece numbers, in the order they were dealt
+     */
+    public ReplayPieceSource(int[] pieces) {
+        this.pieces = pieces;
+    }
+
+    /**
+     * Get the next recorded piece, or a placeholder if every recorded piece has been dealt
+     * @return the next piece
+     */
+    @Override
+    public GamePiece nextPiece() {
+        if (next >= pieces.length) {
+            var placeholder = GamePiece.createPiece(0);
+            placeholders.add(placeholder);
+            return placeholder;
+        }
+        return GamePiece.createPiece(pieces[next++]);
+    }
+
+    /**
+     * Check whether a piece is a placeholder dealt after the recorded pieces ran out
+     * @param piece the piece
+     * @return if the piece is a placeholder
+     */
+    @Override
+    public boolean isPending(GamePiece piece) {
+        for (var placeholder : placeholders) {
+            if (placeholder == piece) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of recorded pieces which have not been dealt yet
+     * @return the pieces left
+     */
+    public int remaining() {
+        return pieces.length - next;
+    }
+}
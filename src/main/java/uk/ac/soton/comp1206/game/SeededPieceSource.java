@@ -0,0 +1,57 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The SeededPieceSource deals random pieces from a seed, so a game played with the same seed gets
+ * exactly the same pieces. It uses a SplittableRandom, which is cheap and not shared between
+ * threads, so many games can run in parallel without contending on a random generator.
+ * <p>
+ * A source is not thread safe, every game should have its own.
+ */
+public class SeededPieceSource implements PieceSource {
+
+    /**
+     * The seed the pieces are generated from
+     */
+    private final long seed;
+
+    /**
+     * The random generator the pieces come from
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Create a new source with a random seed
+     */
+    public SeededPieceSource() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Create a new source with the given seed
+     * @param seed the seed to generate pieces from
+     */
+    public SeededPieceSource(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Get the next random piece
+     * @return the next piece
+     */
+    @Override
+    public GamePiece nextPiece() {
+        return GamePiece.createPiece(random.nextInt(GamePiece.PIECES));
+    }
+
+    /**
+     * Get the seed the pieces are generated from, which can be used to replay the same game
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -1,16 +1,35 @@
 package uk.ac.soton.comp1206.network;
 
 import com.neovisionaries.ws.client.*;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.event.CommunicationsListener;
+import uk.ac.soton.comp1206.event.ServerMessageListener;
+import uk.ac.soton.comp1206.network.ServerMessage.ConnectionMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.JoinMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.NickMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PartedMsg;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Uses web sockets to talk to a web socket server and relays communication to attached listeners
+ * Uses web sockets to talk to a web socket server and relays communication to attached listeners.
+ * Each message is parsed once by the {@link MessageDecoder} and only given to the listeners of its kind.
+ * The listeners of each kind are kept in a copy-on-write list, so they can be added and removed on any thread
+ * while messages are being delivered.
+ * <p>
+ * If the connection is lost, or cannot be made at first, it keeps reconnecting in the background, waiting longer
+ * after every failed attempt. Messages sent meanwhile are kept and sent once it reconnects, after the local player's
+ * name and game have been restored.
  *
  * YOU DO NOT NEED TO WORRY ABOUT THIS CLASS! Leave it be :-)
  */
@@ -21,107 +40,344 @@ public class Communicator {
     private static Communicator instance;
 
     /**
-     * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages.
+     * The delay before the first attempt to reconnect, in ms
      */
-    private final List<CommunicationsListener> handlers = new ArrayList<>();
+    private static final long BASE_BACKOFF = 500;
 
-    private WebSocket ws = null;
+    /**
+     * The longest delay between attempts to reconnect, in ms
+     */
+    private static final long MAX_BACKOFF = 30_000;
+
+    /**
+     * Attached listeners listening to messages on this Communicator, by the kind of message they are sent.
+     */
+    private final ConcurrentHashMap<Class<? extends ServerMessage>, List<Subscription<?>>> handlers =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The thread listeners which asked for {@link Delivery#WORKER} are called on
+     */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "CommunicatorWorker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The address of the server
+     */
+    private final String server;
+
+    /**
+     * The current socket, replaced every time it reconnects
+     */
+    private volatile WebSocket ws = null;
+
+    /**
+     * Held while a new socket is taken into use or a socket is found to have disconnected, so the
+     * two cannot interleave
+     */
+    private final Object connectionLock = new Object();
+
+    /**
+     * The messages waiting to be written to the socket
+     */
+    private final SendQueue sendQueue = new SendQueue(message -> ws.sendText(message));
+
+    /**
+     * Runs the connection attempts, so nothing waits for them
+     */
+    private final ScheduledExecutorService connector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "CommunicatorConnector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ConnectionState state = ConnectionState.CONNECTING;
 
     /**
-     * Create a new communicator to the given web socket server
+     * The number of failed attempts since the last successful connection
+     */
+    private int attempts;
+
+    /**
+     * The local player's name, as last confirmed by the server, or null if it has not changed it
+     */
+    private volatile String nickname;
+
+    /**
+     * The game the local player is in, or null if they are not in one
+     */
+    private volatile String channel;
+
+    /**
+     * Create a new communicator to the given web socket server. The first attempt to connect is made
+     * straight away. If it fails, it keeps trying in the background.
      *
      * @param server server to connect to
      */
     private Communicator(String server) {
+        this.server = server;
+        if (!connect()) {
+            Platform.runLater(() -> {
+                Alert error = new Alert(Alert.AlertType.ERROR, "Unable to communicate with the TetrECS server\n\n"
+                    + "Please ensure you are connected to the VPN\n\nStill trying to connect in the background");
+                error.show();
+            });
+            scheduleReconnect();
+        }
+    }
 
+    /**
+     * Try to connect to the server once
+     *
+     * @return if it connected
+     */
+    private boolean connect() {
         try {
             var socketFactory = new WebSocketFactory();
 
             //Connect to the server
-            ws = socketFactory.createSocket(server);
-            ws.connect();
-            logger.info("Connected to " + server);
-
-            //When a message is received, call the receive method
-            ws.addListener(new WebSocketAdapter() {
-                @Override
-                public void onTextMessage(WebSocket websocket, String message) throws Exception {
-                    Communicator.this.receive(websocket, message);
+            var socket = socketFactory.createSocket(server);
+            addListeners(socket);
+            socket.connect();
+            synchronized (connectionLock) {
+                //a socket dropped before it is taken into use is ignored by disconnected, and
+                //writing to it would not fail, so it is treated as a failed attempt. Once it is in
+                //use, disconnected waits for this to finish and then handles the drop.
+                if (!socket.isOpen()) {
+                    logger.error("Socket closed while connecting to " + server);
+                    return false;
                 }
-                @Override
-                public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
-                    logger.info("Ping? Pong!");
-                }
-            });
+                ws = socket;
+                logger.info("Connected to " + server);
 
-            //Error handling
-            ws.addListener(new WebSocketAdapter() {
-                @Override
-                public void onTextMessage(WebSocket websocket, String message) throws Exception {
-                    if(message.startsWith("ERROR")) {
-                        logger.error(message);
-                    }
-                }
-                @Override
-                public void handleCallbackError(WebSocket webSocket, Throwable throwable) throws Exception {
-                    logger.error("Callback Error:" + throwable.getMessage());
-                    throwable.printStackTrace();
-                }
-                @Override
-                public void onError(WebSocket webSocket, WebSocketException e) throws Exception {
-                    logger.error("Error:" + e.getMessage());
-                    e.printStackTrace();
+                var resumed = state == ConnectionState.RECONNECTING;
+                attempts = 0;
+                if (resumed) resumeSession();
+                setState(ConnectionState.CONNECTED, resumed);
+                sendQueue.setConnected(true);
+            }
+        } catch (Exception e) {
+            logger.error("Socket error: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add the listeners to a new socket
+     *
+     * @param socket the socket
+     */
+    private void addListeners(WebSocket socket) {
+        //When a message is received, call the receive method
+        socket.addListener(new WebSocketAdapter() {
+            @Override
+            public void onTextMessage(WebSocket websocket, String message) throws Exception {
+                Communicator.this.receive(websocket, message);
+            }
+            @Override
+            public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
+                logger.info("Ping? Pong!");
+            }
+            @Override
+            public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame,
+                                       WebSocketFrame clientCloseFrame, boolean closedByServer) throws Exception {
+                disconnected(websocket);
+            }
+        });
+
+        //Error handling
+        socket.addListener(new WebSocketAdapter() {
+            @Override
+            public void onTextMessage(WebSocket websocket, String message) throws Exception {
+                if(message.startsWith("ERROR")) {
+                    logger.error(message);
                 }
-            });
+            }
+            @Override
+            public void handleCallbackError(WebSocket webSocket, Throwable throwable) throws Exception {
+                logger.error("Callback Error:" + throwable.getMessage());
+                throwable.printStackTrace();
+            }
+            @Override
+            public void onError(WebSocket webSocket, WebSocketException e) throws Exception {
+                logger.error("Error:" + e.getMessage());
+            }
+        });
+    }
 
-        } catch (Exception e){
-            logger.error("Socket error: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Handle the socket disconnecting: keep any messages until it reconnects, and start reconnecting
+     *
+     * @param socket the socket which disconnected
+     */
+    private void disconnected(WebSocket socket) {
+        synchronized (connectionLock) {
+            if (socket != ws) return; //an old socket, or one which is not in use yet
+            logger.warn("Disconnected from " + server);
+            sendQueue.setConnected(false);
+            setState(ConnectionState.RECONNECTING, false);
+        }
+        connector.execute(this::scheduleReconnect);
+    }
 
-            Alert error = new Alert(Alert.AlertType.ERROR,"Unable to communicate with the TetrECS server\n\n" + e.getMessage() + "\n\nPlease ensure you are connected to the VPN");
-            error.showAndWait();
-            System.exit(1);
+    /**
+     * Try to connect again after a delay which doubles with every failed attempt, up to a limit,
+     * with some jitter so many clients do not all retry at once
+     */
+    private void scheduleReconnect() {
+        if (state != ConnectionState.RECONNECTING) setState(ConnectionState.RECONNECTING, false);
+        var backoff = Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(attempts, 16));
+        var delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        attempts++;
+        logger.info("Reconnecting in {}ms, attempt {}", delay, attempts);
+        connector.schedule(() -> {
+            if (!connect()) scheduleReconnect();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Put the messages to restore the session at the front of the send queue: the local player's
+     * name, and the game they were in
+     */
+    private void resumeSession() {
+        var resume = new ArrayList<String>(2);
+        if (nickname != null) resume.add("NICK " + nickname);
+        if (channel != null) resume.add("JOIN " + channel);
+        logger.info("Resuming session: {}", resume);
+        sendQueue.sendFirst(resume.toArray(new String[0]));
+    }
+
+    /**
+     * Change the state of the connection and tell anyone listening
+     *
+     * @param newState the new state
+     * @param resumed if the connection is back after being lost
+     */
+    @SuppressWarnings("unchecked")
+    private void setState(ConnectionState newState, boolean resumed) {
+        state = newState;
+        var subscriptions = handlers.get(ConnectionMsg.class);
+        if (subscriptions == null) return;
+        var message = new ConnectionMsg(newState, resumed);
+        for (var subscription : subscriptions) {
+            ((Subscription<ServerMessage>) subscription).deliver(message, worker);
         }
     }
 
-    /** Send a message to the server
+    /**
+     * Get the state of the connection to the server
+     *
+     * @return the connection state
+     */
+    public ConnectionState getState() {
+        return state;
+    }
+
+    /** Send a message to the server. The message is queued and written by the sender thread, so this never waits
+     * for the network.
      *
      * @param message Message to send
      */
     public void send(String message) {
-        logger.info("Sending message: " + message);
+        sendQueue.send(message);
+    }
+
+    /**
+     * Get the queue of messages waiting to be sent, to read its counters
+     * @return the send queue
+     */
+    public SendQueue getSendQueue() {
+        return sendQueue;
+    }
 
-        ws.sendText(message);
+    /**
+     * Add a new listener to receive one kind of message from the server on the JavaFX thread
+     * @param type the kind of message
+     * @param listener the listener to add
+     * @param <T> the kind of message
+     * @return the subscription, to remove the listener with
+     */
+    public <T extends ServerMessage> Subscription<T> addListener(Class<T> type, ServerMessageListener<? super T> listener) {
+        return addListener(type, Delivery.FX, listener);
     }
 
     /**
-     * Add a new listener to receive messages from the server
+     * Add a new listener to receive one kind of message from the server
+     * @param type the kind of message
+     * @param delivery the thread to call the listener on
      * @param listener the listener to add
+     * @param <T> the kind of message
+     * @return the subscription, to remove the listener with
      */
-    public void addListener(CommunicationsListener listener) {
-        this.handlers.add(listener);
+    public <T extends ServerMessage> Subscription<T> addListener(Class<T> type, Delivery delivery,
+                                                              ServerMessageListener<? super T> listener) {
+        var subscription = new Subscription<>(this, type, delivery, listener);
+        handlers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
     }
 
     /**
-     * Clear all current listeners
+     * Remove a listener. Called by {@link Subscription#unsubscribe()}.
+     * @param subscription the subscription of the listener
+     */
+    void removeSubscription(Subscription<?> subscription) {
+        var subscriptions = handlers.get(subscription.getType());
+        if (subscriptions != null) subscriptions.remove(subscription);
+    }
+
+    /**
+     * Clear all current listeners. None of them will be called again, even with messages already waiting to be
+     * delivered on the JavaFX thread.
      */
     public void clearListeners() {
-        this.handlers.clear();
+        logger.debug("Send queue: {}", sendQueue);
+        for (var subscriptions : handlers.values()) {
+            for (var subscription : subscriptions) {
+                subscription.cancel();
+            }
+            subscriptions.clear();
+        }
     }
 
-    /** Receive a message from the server. Relay to any attached listeners
+    /** Receive a message from the server. Parse it and relay it to the listeners of its kind
      *
      * @param websocket the socket
      * @param message the message that was received
      */
+    @SuppressWarnings("unchecked")
     private void receive(WebSocket websocket, String message) {
         logger.info("Received: " + message);
+        sendQueue.received(message);
 
-        for(CommunicationsListener handler : handlers) {
-            handler.receiveCommunication(message);
+        var decoded = MessageDecoder.decode(message);
+        if (decoded == null) return;
+        trackSession(decoded);
+        var subscriptions = handlers.get(decoded.getClass());
+        if (subscriptions == null) return;
+        for (var subscription : subscriptions) {
+            ((Subscription<ServerMessage>) subscription).deliver(decoded, worker);
         }
     }
     
+    /**
+     * Remember the parts of the session to restore after reconnecting
+     *
+     * @param message a received message
+     */
+    private void trackSession(ServerMessage message) {
+        if (message instanceof NickMsg nick && nick.oldName() == null) {
+            nickname = nick.newName();
+        } else if (message instanceof JoinMsg join) {
+            channel = join.channel();
+        } else if (message instanceof PartedMsg) {
+            channel = null;
+        }
+    }
+
     /**
      * Method to get the one instance of the communicator
      * @return the communicator
@@ -0,0 +1,23 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * The state of the {@link Communicator}'s connection to the server
+ */
+public enum ConnectionState {
+
+    /**
+     * Trying to connect for the first time
+     */
+    CONNECTING,
+
+    /**
+     * Connected, messages are being sent
+     */
+    CONNECTED,
+
+    /**
+     * The connection was lost or could not be made, and is being retried. Messages are kept until
+     * it reconnects.
+     */
+    RECONNECTING
+}
@@ -0,0 +1,24 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * The thread a listener of the {@link Communicator} is given its messages on
+ */
+public enum Delivery {
+
+    /**
+     * On the websocket reader thread, as soon as the message is parsed. The listener must be quick
+     * and must not touch the UI.
+     */
+    READER,
+
+    /**
+     * On the JavaFX thread, so the listener can update the UI
+     */
+    FX,
+
+    /**
+     * On the communicator's worker thread, for slower work which should not hold up the reader or
+     * the UI. Messages are delivered in the order they arrived.
+     */
+    WORKER
+}
@@ -0,0 +1,140 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.util.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.dataStructure.Triplet;
+import uk.ac.soton.comp1206.network.ServerMessage.ChannelsMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ChatMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ErrorMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.HiscoresMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.HostMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.JoinMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.NickMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.OtherMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PartedMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PieceMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ScoresMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.StartMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.UsersMsg;
+
+/**
+ * The MessageDecoder parses the text messages sent by the server into {@link ServerMessage}
+ * records. Messages are read by index, without split or regular expressions, so each message is
+ * only walked once.
+ */
+public class MessageDecoder {
+
+    private static final Logger logger = LogManager.getLogger(MessageDecoder.class);
+
+    private MessageDecoder() {
+    }
+
+    /**
+     * Parse a message from the server
+     * @param message the message, a command optionally followed by a space and its content
+     * @return the parsed message, or null if it is malformed
+     */
+    public static ServerMessage decode(String message) {
+        var space = message.indexOf(' ');
+        var command = space < 0 ? message : message.substring(0, space);
+        var content = space < 0 ? "" : message.substring(space + 1);
+        try {
+            return switch (command) {
+                case "PIECE" -> new PieceMsg(Integer.parseInt(content.trim()));
+                case "SCORES" -> new ScoresMsg(parseScores(content));
+                case "CHANNELS" -> new ChannelsMsg(parseLines(content));
+                case "USERS" -> new UsersMsg(parseLines(content));
+                case "HISCORES" -> new HiscoresMsg(parseHiscores(content));
+                case "MSG" -> {
+                    var colon = content.indexOf(':');
+                    yield colon < 0 ? new ChatMsg("", content)
+                        : new ChatMsg(content.substring(0, colon), content.substring(colon + 1));
+                }
+                case "NICK" -> {
+                    var colon = content.indexOf(':');
+                    yield colon < 0 ? new NickMsg(null, content)
+                        : new NickMsg(content.substring(0, colon), content.substring(colon + 1));
+                }
+                case "JOIN" -> new JoinMsg(content);
+                case "ERROR" -> new ErrorMsg(content);
+                case "HOST" -> new HostMsg();
+                case "START" -> new StartMsg();
+                case "PARTED" -> new PartedMsg();
+                default -> new OtherMsg(command, content);
+            };
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            logger.error("Malformed message: {}", message);
+            return null;
+        }
+    }
+
+    /**
+     * Parse the content of a SCORES message, one name:score:lives line per player
+     * @param content the content of the message
+     * @return the name, lives and score of every player, in order
+     */
+    public static List<Triplet<String, String, Integer>> parseScores(String content) {
+        var players = new ArrayList<Triplet<String, String, Integer>>();
+        var start = 0;
+        while (start < content.length()) {
+            var end = lineEnd(content, start);
+            var first = content.indexOf(':', start);
+            var second = content.indexOf(':', first + 1);
+            if (first < 0 || second < 0 || second >= end) throw new IndexOutOfBoundsException(start);
+            var name = content.substring(start, first);
+            var score = Integer.parseInt(content, first + 1, second, 10);
+            var lives = content.substring(second + 1, end);
+            players.add(new Triplet<>(name, lives, score));
+            start = end + 1;
+        }
+        return players;
+    }
+
+    /**
+     * Parse the content of a HISCORES message, one name:score line per score
+     * @param content the content of the message
+     * @return the name and score of every high score, in order
+     */
+    private static List<Pair<String, Integer>> parseHiscores(String content) {
+        var scores = new ArrayList<Pair<String, Integer>>();
+        var start = 0;
+        while (start < content.length()) {
+            var end = lineEnd(content, start);
+            var colon = content.indexOf(':', start);
+            if (colon < 0 || colon >= end) throw new IndexOutOfBoundsException(start);
+            scores.add(new Pair<>(content.substring(start, colon), Integer.parseInt(content, colon + 1, end, 10)));
+            start = end + 1;
+        }
+        return scores;
+    }
+
+    /**
+     * Parse content made of one name per line, skipping empty lines
+     * @param content the content of the message
+     * @return the lines
+     */
+    private static List<String> parseLines(String content) {
+        var lines = new ArrayList<String>();
+        var start = 0;
+        while (start < content.length()) {
+            var end = lineEnd(content, start);
+            if (end > start) lines.add(content.substring(start, end));
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Find the end of the line starting at an index
+     * @param content the content
+     * @param start the start of the line
+     * @return the index of the next newline, or the length of the content
+     */
+    private static int lineEnd(String content, int start) {
+        var end = content.indexOf('\n', start);
+        return end < 0 ? content.length() : end;
+    }
+}
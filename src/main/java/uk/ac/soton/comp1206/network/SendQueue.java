@@ -0,0 +1,323 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The SendQueue holds the messages waiting to be sent to the server. Any thread can queue a
+ * message, and a single writer thread takes them off and writes them to the socket, so no caller
+ * ever waits for the network.
+ * <p>
+ * The polling requests SCORES, USERS and LIST are coalesced: while one is waiting to be sent, or
+ * waiting for its reply, asking again does nothing, so polls never pile up behind a slow server.
+ * <p>
+ * Only polls are ever dropped. Once the queue holds CAPACITY messages, new polls are dropped and
+ * counted, but game messages such as PIECE, SCORE and DIE are always queued, letting the queue grow
+ * past its limit, as losing one would break the game. No caller ever blocks.
+ * <p>
+ * While the communicator is not connected, messages are kept in the queue and sent once it
+ * reconnects.
+ */
+public class SendQueue {
+
+    private static final Logger logger = LogManager.getLogger(SendQueue.class);
+
+    /**
+     * The most messages which can wait to be sent before polls are dropped
+     */
+    private static final int CAPACITY = 256;
+
+    /**
+     * The requests which are coalesced
+     */
+    private static final String[] POLLS = {"SCORES", "USERS", "LIST"};
+
+    /**
+     * The reply to each of the polls
+     */
+    private static final String[] REPLIES = {"SCORES", "USERS", "CHANNELS"};
+
+    /**
+     * How long to wait for the reply to a poll before allowing another, in case it never comes
+     */
+    private static final long REPLY_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * The messages waiting to be sent
+     */
+    private final BlockingDeque<String> queue = new LinkedBlockingDeque<>();
+
+    /**
+     * Guards connected, and is waited on by the writer thread until it connects
+     */
+    private final Object connectionLock = new Object();
+
+    /**
+     * Whether the socket is connected, so the writer thread can send
+     */
+    private boolean connected;
+
+    /**
+     * When each poll was queued, or 0 if it is not in flight
+     */
+    private final AtomicLongArray pollsInFlight = new AtomicLongArray(POLLS.length);
+
+    /**
+     * Writes a message to the socket
+     */
+    private final Consumer<String> writer;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    /**
+     * The number of PIECE requests taken off the queue to be written to the socket
+     */
+    private final AtomicLong piecesSent = new AtomicLong();
+
+    /**
+     * The number of PIECE requests sent to the socket before it last disconnected. Their replies
+     * may have been lost with the connection.
+     */
+    private volatile long piecesSentBeforeDisconnect;
+    private final AtomicLong highWater = new AtomicLong();
+
+    /**
+     * Create a new queue and start its writer thread
+     * @param writer writes a message to the socket, only ever called from the writer thread
+     */
+    public SendQueue(Consumer<String> writer) {
+        this.writer = writer;
+        var thread = new Thread(this::writeMessages, "CommunicatorSender");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a message to be sent
+     * @param message the message
+     */
+    public void send(String message) {
+        var poll = pollIndex(message);
+        if (poll >= 0) {
+            var now = System.nanoTime();
+            var queued = pollsInFlight.get(poll);
+            if ((queued != 0 && now - queued < REPLY_TIMEOUT) || !pollsInFlight.compareAndSet(poll, queued, now)) {
+                coalesced.incrementAndGet();
+                logger.debug("Coalesced message: {}", message);
+                return;
+            }
+        }
+
+        if (poll >= 0 && queue.size() >= CAPACITY) {
+            //a poll can be asked again later, so it is the only thing dropped
+            dropped.incrementAndGet();
+            logger.warn("Send queue full, dropped message: {}", message);
+            pollsInFlight.set(poll, 0);
+            return;
+        }
+        queue.offer(message);
+        if (queue.size() > CAPACITY) {
+            overflowed.incrementAndGet();
+            logger.warn("Send queue over capacity, queued message anyway: {}", message);
+        }
+        highWater.accumulateAndGet(queue.size(), Math::max);
+        logger.debug("Queued message: {}", message);
+    }
+
+    /**
+     * Queue messages to be sent before anything else waiting, in the given order. Used to restore
+     * the session after reconnecting. They are not coalesced, and like any message which is not a
+     * poll, they are queued even if the queue is over capacity, so nothing is dropped to make room.
+     * @param messages the messages
+     */
+    public void sendFirst(String... messages) {
+        for (int i = messages.length - 1; i >= 0; i--) {
+            queue.offerFirst(messages[i]);
+        }
+    }
+
+    /**
+     * Set whether the socket is connected. Messages are only written while it is.
+     * When it disconnects, the replies to any polls in flight are lost, so they may be sent again.
+     * @param isConnected if the socket is connected
+     */
+    public void setConnected(boolean isConnected) {
+        synchronized (connectionLock) {
+            connected = isConnected;
+            if (!isConnected) piecesSentBeforeDisconnect = piecesSent.get();
+            connectionLock.notifyAll();
+        }
+        if (!isConnected) {
+            //queued polls would be stale by the time it reconnects, so they are asked again then
+            queue.removeIf(message -> pollIndex(message) >= 0);
+            for (int i = 0; i < POLLS.length; i++) {
+                pollsInFlight.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Wait until the socket is connected
+     * @throws InterruptedException if the writer thread is interrupted
+     */
+    private void awaitConnection() throws InterruptedException {
+        synchronized (connectionLock) {
+            while (!connected) {
+                connectionLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Check whether the socket is connected before writing a message. A PIECE request is counted
+     * as sent here, under the same lock as the count taken on disconnect, so it is either counted
+     * before the connection is lost or kept for the next one. It is counted even if the write
+     * fails, as its reply will not come either way.
+     * @param message the message about to be written
+     * @return if it is connected
+     */
+    private boolean isConnected(String message) {
+        synchronized (connectionLock) {
+            if (connected && message.equals("PIECE")) piecesSent.incrementAndGet();
+            return connected;
+        }
+    }
+
+    /**
+     * Tell the queue a message has been received, so a poll whose reply it is can be sent again
+     * @param message the received message
+     */
+    public void received(String message) {
+        for (int i = 0; i < REPLIES.length; i++) {
+            if (message.startsWith(REPLIES[i])) {
+                pollsInFlight.set(i, 0);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take messages off the queue and write them, forever
+     */
+    private void writeMessages() {
+        while (true) {
+            String message;
+            try {
+                awaitConnection();
+                message = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!isConnected(message)) {
+                //disconnected while waiting, keep it for when it reconnects
+                queue.offerFirst(message);
+                continue;
+            }
+            try {
+                writer.accept(message);
+                sent.incrementAndGet();
+                logger.debug("Sent message: {}", message);
+            } catch (Exception e) {
+                logger.error("Unable to send message: " + e.getMessage());
+                var poll = pollIndex(message);
+                if (poll >= 0) pollsInFlight.set(poll, 0);
+            }
+        }
+    }
+
+    /**
+     * Find which poll a message is
+     * @param message the message
+     * @return the index of the poll, or -1 if the message is not a poll
+     */
+    private static int pollIndex(String message) {
+        for (int i = 0; i < POLLS.length; i++) {
+            if (message.equals(POLLS[i])) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of messages waiting to be sent
+     * @return the queue depth
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get the most messages that have been waiting at once
+     * @return the highest queue depth
+     */
+    public long getHighWater() {
+        return highWater.get();
+    }
+
+    /**
+     * Get the number of messages written to the socket
+     * @return messages sent
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Get the number of PIECE requests sent to the socket
+     * @return pieces requested
+     */
+    public long getPiecesSent() {
+        return piecesSent.get();
+    }
+
+    /**
+     * Get the number of PIECE requests which had been sent to the socket when it last
+     * disconnected. Requests still queued then are sent once it reconnects.
+     * @return pieces requested before the last disconnect
+     */
+    public long getPiecesSentBeforeDisconnect() {
+        return piecesSentBeforeDisconnect;
+    }
+
+    /**
+     * Get the number of polls not sent because one was already in flight
+     * @return polls coalesced
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Get the number of polls dropped because the queue was full
+     * @return polls dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Get the number of game messages queued while the queue was already full
+     * @return messages queued over capacity
+     */
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+
+    /**
+     * Summarise the counters, for logging
+     * @return the counters as text
+     */
+    @Override
+    public String toString() {
+        return "sent=" + sent + " coalesced=" + coalesced + " dropped=" + dropped + " overflowed=" + overflowed
+            + " depth=" + getDepth() + " highWater=" + highWater;
+    }
+}
@@ -0,0 +1,127 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.List;
+import javafx.util.Pair;
+import uk.ac.soton.comp1206.dataStructure.Triplet;
+
+/**
+ * A ServerMessage is a message received from the server, already parsed by the
+ * {@link MessageDecoder}. There is an immutable record for every kind of message, and handlers
+ * subscribe to the kinds they want from the {@link Communicator}.
+ * <p>
+ * The same record is given to every subscriber, possibly on different threads, so the lists in
+ * them are copied into unmodifiable lists when they are made.
+ */
+public interface ServerMessage {
+
+    /**
+     * PIECE: the next piece of a multiplayer game
+     * @param piece the piece number
+     */
+    record PieceMsg(int piece) implements ServerMessage {
+    }
+
+    /**
+     * SCORES: the score and lives of every player in a multiplayer game
+     * @param players the name, lives and score of every player, in order
+     */
+    record ScoresMsg(List<Triplet<String, String, Integer>> players) implements ServerMessage {
+        public ScoresMsg {
+            players = List.copyOf(players);
+        }
+    }
+
+    /**
+     * CHANNELS: the games which can be joined
+     * @param channels the names of the games
+     */
+    record ChannelsMsg(List<String> channels) implements ServerMessage {
+        public ChannelsMsg {
+            channels = List.copyOf(channels);
+        }
+    }
+
+    /**
+     * USERS: the players in the current lobby
+     * @param users the names of the players
+     */
+    record UsersMsg(List<String> users) implements ServerMessage {
+        public UsersMsg {
+            users = List.copyOf(users);
+        }
+    }
+
+    /**
+     * HISCORES: the online high scores
+     * @param scores the name and score of every high score, in order
+     */
+    record HiscoresMsg(List<Pair<String, Integer>> scores) implements ServerMessage {
+        public HiscoresMsg {
+            scores = List.copyOf(scores);
+        }
+    }
+
+    /**
+     * MSG: a chat message
+     * @param user who sent it
+     * @param text what they said
+     */
+    record ChatMsg(String user, String text) implements ServerMessage {
+    }
+
+    /**
+     * NICK: a player has changed their name
+     * @param oldName their old name, or null if it is the local player
+     * @param newName their new name
+     */
+    record NickMsg(String oldName, String newName) implements ServerMessage {
+    }
+
+    /**
+     * JOIN: the local player has joined a game
+     * @param channel the name of the game
+     */
+    record JoinMsg(String channel) implements ServerMessage {
+    }
+
+    /**
+     * ERROR: the server could not do something
+     * @param error the error message
+     */
+    record ErrorMsg(String error) implements ServerMessage {
+    }
+
+    /**
+     * HOST: the local player is now the host of their lobby
+     */
+    record HostMsg() implements ServerMessage {
+    }
+
+    /**
+     * START: the game in the lobby has started
+     */
+    record StartMsg() implements ServerMessage {
+    }
+
+    /**
+     * PARTED: the local player has left their lobby
+     */
+    record PartedMsg() implements ServerMessage {
+    }
+
+    /**
+     * Not sent by the server, but by the communicator itself whenever its connection changes
+     * @param state the new state of the connection
+     * @param resumed if the connection is back after being lost, with the session replayed
+     */
+    record ConnectionMsg(ConnectionState state, boolean resumed) implements ServerMessage {
+    }
+
+    /**
+     * Any other message, which nothing needs to parse
+     * @param command the first word of the message
+     * @param content the rest of the message, or an empty string
+     */
+    record OtherMsg(String command, String content) implements ServerMessage {
+    }
+}
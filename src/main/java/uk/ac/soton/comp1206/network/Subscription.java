@@ -0,0 +1,93 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.concurrent.Executor;
+import javafx.application.Platform;
+import uk.ac.soton.comp1206.event.ServerMessageListener;
+
+/**
+ * A Subscription is the handle of a listener added to the {@link Communicator}. It can be used to
+ * remove the listener again.
+ * <p>
+ * Once unsubscribed, the listener is not called again, even with a message which had already been
+ * handed to the JavaFX or worker thread.
+ * @param <T> the kind of message the listener is given
+ */
+public class Subscription<T extends ServerMessage> {
+
+    private final Communicator communicator;
+    private final Class<T> type;
+    private final Delivery delivery;
+    private final ServerMessageListener<? super T> listener;
+
+    /**
+     * Whether the listener is still subscribed. Set on any thread, read on the delivering thread.
+     */
+    private volatile boolean active = true;
+
+    /**
+     * Create a new subscription. Only the communicator creates them.
+     * @param communicator the communicator the listener is added to
+     * @param type the kind of message
+     * @param delivery the thread to deliver on
+     * @param listener the listener
+     */
+    Subscription(Communicator communicator, Class<T> type, Delivery delivery, ServerMessageListener<? super T> listener) {
+        this.communicator = communicator;
+        this.type = type;
+        this.delivery = delivery;
+        this.listener = listener;
+    }
+
+    /**
+     * Give a message to the listener on the thread it asked for
+     * @param message the message
+     * @param worker the communicator's worker thread
+     */
+    void deliver(T message, Executor worker) {
+        switch (delivery) {
+            case READER -> receive(message);
+            case FX -> Platform.runLater(() -> receive(message));
+            case WORKER -> worker.execute(() -> receive(message));
+        }
+    }
+
+    /**
+     * Call the listener, unless it has been unsubscribed since the message was handed over
+     * @param message the message
+     */
+    private void receive(T message) {
+        if (active) listener.receiveMessage(message);
+    }
+
+    /**
+     * Remove the listener from the communicator
+     */
+    public void unsubscribe() {
+        if (!active) return;
+        active = false;
+        communicator.removeSubscription(this);
+    }
+
+    /**
+     * Mark the listener as removed, when the communicator clears all its listeners
+     */
+    void cancel() {
+        active = false;
+    }
+
+    /**
+     * Check whether the listener is still subscribed
+     * @return if the listener is subscribed
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Get the kind of message the listener is given
+     * @return the message class
+     */
+    public Class<T> getType() {
+        return type;
+    }
+}
@@ -1,29 +1,32 @@
 package uk.ac.soton.comp1206.scene;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Random;
 import java.util.Scanner;
-import javafx.animation.Interpolator;
-import javafx.animation.Transition;
+import javafx.animation.AnimationTimer;
 import javafx.geometry.Pos;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
-import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.DebugOverlay;
 import uk.ac.soton.comp1206.component.GameBar;
-import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.component.TimerBar;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.MultiplayerGame;
+import uk.ac.soton.comp1206.game.PlacementIndex;
+import uk.ac.soton.comp1206.game.SeededPieceSource;
 import uk.ac.soton.comp1206.media.Multimedia;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
@@ -34,6 +37,12 @@ import uk.ac.soton.comp1206.ui.GameWindow;
 public class ChallengeScene extends BaseScene {
 
     private static final Logger logger = LogManager.getLogger(ChallengeScene.class);
+    
+    /**
+     * The number of pieces stress mode tries to play every frame
+     */
+    private static final int STRESS_PIECES_PER_FRAME = 8;
+    
     /**
      * Game model of the game to link to UI
      */
@@ -41,12 +50,14 @@ public class ChallengeScene extends BaseScene {
     private PieceBoard currentPiece;
     private PieceBoard nextPiece;
     private GameBoard board;
-    private Rectangle timer;
+    private TimerBar timer;
     private String scoresFile = getClass().getResource("/scores.txt").getFile();
     private Scanner reader;
     private FileWriter writer;
     private Text highScore;
     private Integer localHighScore;
+    private AnimationTimer stressTimer;
+    private DebugOverlay debugOverlay;
     /**
      * The UI component which holds the Scores, Lives, Multiplier and Level UI components
      */
@@ -96,6 +107,12 @@ public class ChallengeScene extends BaseScene {
 
         var mainPane = new BorderPane();
         challengePane.getChildren().add(mainPane);
+
+        //Performance overlay, shown with F3
+        debugOverlay = new DebugOverlay();
+        debugOverlay.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        StackPane.setAlignment(debugOverlay, Pos.TOP_LEFT);
+        challengePane.getChildren().add(debugOverlay);
         
         board = new GameBoard(game.getGrid(),gameWindow.getWidth()/2,gameWindow.getWidth()/2);
         centreBox = new VBox(board);
@@ -146,7 +163,7 @@ public class ChallengeScene extends BaseScene {
         bottomBar.setAlignment(Pos.CENTER_LEFT);
         mainPane.setBottom(bottomBar);
     
-        timer = new Rectangle(gameWindow.getWidth(), 25);
+        timer = new TimerBar(gameWindow.getWidth(), 25);
         bottomBar.getChildren().add(timer);
         
         //Handle when mouse hovers over a game board block
@@ -187,7 +204,8 @@ public class ChallengeScene extends BaseScene {
      * Handle when a block is clicked
      * @param gameBlock the Game Block that was clocked
      */
-    private void blockClicked(GameBlock gameBlock) {
+    private void blockClicked(GameBlockCoordinate gameBlock) {
+        debugOverlay.inputReceived();
         var flag = game.blockClicked(gameBlock);
         if (flag) {
             Multimedia.playAudio("sounds/place.wav");
@@ -209,8 +227,10 @@ public class ChallengeScene extends BaseScene {
     public void setupGame() {
         logger.info("Starting a new challenge");
 
-        //Start new game
-        game = new Game(5, 5);
+        //Start new game, with the same pieces every time if a seed was given
+        var seed = gameWindow.getSeed();
+        var pieceSource = seed == null ? new SeededPieceSource() : new SeededPieceSource(seed);
+        game = new Game(gameWindow.getBoardCols(), gameWindow.getBoardRows(), pieceSource);
     }
 
     /**
@@ -220,7 +240,73 @@ public class ChallengeScene extends BaseScene {
     public void initialise() {
         logger.info("Initialising Challenge");
         scene.setOnKeyPressed(this::keyboardInput);
+        debugOverlay.attach(scene, gameWindow.getPerfLogFile());
         game.start();
+        if (gameWindow.isStressMode() && !(game instanceof MultiplayerGame)) startStressMode();
+    }
+    
+    /**
+     * Start playing the game automatically, placing pieces at random legal positions every frame
+     * as fast as possible, to fill large boards quickly
+     */
+    private void startStressMode() {
+        logger.info("Starting stress mode");
+        var random = new Random();
+        var placements = new PlacementIndex(game.getCols(), game.getRows());
+        stressTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                for (int piece = 0; piece < STRESS_PIECES_PER_FRAME; piece++) {
+                    if (!playAtRandom(placements, random)) {
+                        //try the other piece next frame, otherwise wait for the timer to move on
+                        game.swapCurrentPiece();
+                        return;
+                    }
+                }
+                bindHighScore();
+            }
+        };
+        stressTimer.start();
+    }
+    
+    /**
+     * Play the current piece, as it is rotated, at a legal position picked at random
+     * @param placements the index to find the legal positions with, reused between pieces
+     * @param random the random number generator
+     * @return if the piece was played, false if it fits nowhere
+     */
+    private boolean playAtRandom(PlacementIndex placements, Random random) {
+        var current = game.getEngine().getCurrentPiece();
+        var rotation = current.getRotation();
+        game.getGrid().legalPlacements(current.getPiece(), placements);
+        var count = placements.count(rotation);
+        if (count == 0) return false;
+
+        //find the chosen position by counting through the set bits
+        var chosen = random.nextInt(count);
+        for (int y = 0; y < placements.getRows(); y++) {
+            var row = placements.getRow(rotation, y);
+            var bits = Long.bitCount(row);
+            if (chosen >= bits) {
+                chosen -= bits;
+                continue;
+            }
+            for (int i = 0; i < chosen; i++) {
+                row &= row - 1;
+            }
+            return game.playPiece(Long.numberOfTrailingZeros(row), y);
+        }
+        return false;
+    }
+
+    /**
+     * Stop stress mode if it is running
+     */
+    private void stopStressMode() {
+        if (stressTimer == null) return;
+        logger.info("Stopping stress mode");
+        stressTimer.stop();
+        stressTimer = null;
     }
     
     /**
@@ -239,6 +325,7 @@ public class ChallengeScene extends BaseScene {
             case A, LEFT -> board.moveAimedBlock(-1, 0);
             case D, RIGHT -> board.moveAimedBlock(1, 0);
             case ENTER -> handleEnter();
+            case F3 -> debugOverlay.toggle();
         }
     }
     
@@ -293,7 +380,7 @@ public class ChallengeScene extends BaseScene {
      * Set the implementation for the Mouse Hover Listener
      * @param block the block that is being hovered over
      */
-    private void handleHover(GameBlock block) {
+    private void handleHover(GameBlockCoordinate block) {
         board.aimEnteredBlock(block);
     }
     
@@ -301,60 +388,88 @@ public class ChallengeScene extends BaseScene {
      * Method to end the game and clean up
      */
     private void closeGame() {
+        cleanupGame();
         game.endGame();
     }
     
+    /**
+     * Stop everything the scene animates or measures, once the game is over or has been left
+     */
+    protected void cleanupGame() {
+        stopStressMode();
+        timer.stop();
+        debugOverlay.close();
+    }
+    
     /**
      * Method to start the Scores screen once the game ends
      */
     protected void handleEndGame() {
+        cleanupGame();
+        saveGameLog();
         Multimedia.playMusicOnce("music/end.wav");
         gameWindow.startScores(game);
     }
     
+    /**
+     * Save the log of the game which has just ended, so it can be replayed later, if a file to
+     * save it to was given
+     */
+    private void saveGameLog() {
+        var file = gameWindow.getGameLogFile();
+        var log = game.getLog();
+        if (file == null || log == null) return;
+        try (var out = new BufferedOutputStream(new FileOutputStream(file))) {
+            log.writeTo(out);
+            logger.info("Saved {} game events in {} bytes to {}", log.getEventCount(), log.getSize(), file);
+        } catch (IOException e) {
+            logger.error("Unable to save the game log: " + e.getMessage());
+        }
+    }
+    
     /**
      * This method handles the Next Piece Event
-     * Displays the current and following game pieces in their respective boards
+     * Displays the current and following game pieces in their respective boards, and the current
+     * piece as a ghost at the aim
      * @param current The current Piece to display
      * @param following The following Piece to display
      */
     private void handleNextPiece(GamePiece current, GamePiece following) {
         logger.info("displaying current and following pieces");
-        currentPiece.setPieceToDisplay(current);
-        nextPiece.setPieceToDisplay(following);
+        //a piece which has not arrived from the server yet is shown as an empty board
+        var pieceSource = game.getPieceSource();
+        if (pieceSource.isPending(current)) {
+            currentPiece.clearPiece();
+            board.showGhost(null);
+        } else {
+            currentPiece.setPieceToDisplay(current);
+            board.showGhost(current);
+        }
+        if (pieceSource.isPending(following)) {
+            nextPiece.clearPiece();
+        } else {
+            nextPiece.setPieceToDisplay(following);
+        }
     }
     
     /**
      * This method handles the Line Cleared Event
-     * takes a set of GameBlockCoordinates and called the fadeOut method on it
-     * @param coordinates the coordinates of the blocks to fade out
+     * takes a mask of cleared blocks and calls the fadeOut method on it
+     * @param cleared the blocks to fade out, one long per row with bit x set for every column
      */
-    private void handleLineCleared(GameBlockCoordinate[] coordinates) {
+    private void handleLineCleared(long[] cleared) {
         logger.info("DEBUG handling line cleared");
         Multimedia.playAudio("sounds/clear.wav");
-        board.fadeOut(coordinates);
+        board.fadeOut(cleared);
     }
     
     /**
      * This method handles the time bar animation
      * @param time the duration of the current timer delay
+     * @param startTime when the game timer was scheduled, so the bar runs out with it
      */
-    private void handleGameLoop(int time) {
-        logger.info("Timer Bar Animation");
-        var animation = new Transition() {
-            {
-                setCycleDuration(Duration.millis(time));
-                interpolatorProperty().set(Interpolator.LINEAR);
-            }
-            @Override
-            protected void interpolate(double frac) {
-                frac = (float) frac;
-                timer.widthProperty().set(gameWindow.getWidth() * (1-frac));
-                var colour = Color.color(1 * frac,1 * (1-frac),0);
-                timer.fillProperty().set(colour);
-            }
-        };
-        animation.play();
+    private void handleGameLoop(int time, long startTime) {
+        timer.restart(time, startTime);
     }
     
     /**
@@ -1,8 +1,8 @@
 package uk.ac.soton.comp1206.scene;
 
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
-import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
@@ -18,6 +18,15 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.LobbyChat;
 import uk.ac.soton.comp1206.media.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.ServerMessage.ChannelsMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ChatMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ErrorMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.HostMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.JoinMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.NickMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PartedMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.StartMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.UsersMsg;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -61,9 +70,8 @@ public class LobbyScene extends BaseScene {
                 gameWindow.startMenu();
             }
         });
-        scene.addPostLayoutPulseListener(this::jumpToBottom);
         
-        communicator.addListener(this::receiveMessage);
+        addListeners();
         channelsTimer = new Timer("ChannelsThread");
         var task = new TimerTask() {
     
@@ -124,15 +132,6 @@ public class LobbyScene extends BaseScene {
         mainPane.setCenter(rightBar);
     }
     
-    /**
-     * Method to jump to bottom when scene changes
-     * Calls the same method on the lobby chat if in a lobby
-     */
-    private void jumpToBottom() {
-        if (lobbyChat == null) return;
-        lobbyChat.jumpToBottom();
-    }
-    
     /**
      * Method to display the text field to create a game
      * @param event the mouse event
@@ -207,34 +206,24 @@ public class LobbyScene extends BaseScene {
     }
     
     /**
-     * Handles all incoming messages from the communicator and
-     * calls the appropriate method to handle each one
-     * @param message the message from the communicator
+     * Subscribes to the messages from the communicator the lobby handles
+     * and calls the appropriate method to handle each one
      */
-    private void receiveMessage(String message) {
-        var lines = message.split(" ", 2);
-        var type = lines[0];
-        if (lines.length == 1) {
-            switch (type) {
-                case "PARTED" -> Platform.runLater(this::partedGame);
-                case "HOST" -> Platform.runLater(() -> lobbyChat.setHost(true));
-                case "START" -> Platform.runLater(() -> {
-                    channelsTimer.cancel();
-                    lobbyChat.stopUsersTimer();
-                    gameWindow.startBattle();
-                });
-            }
-        } else {
-            var content = lines[1];
-            switch (type) {
-                case "CHANNELS" -> Platform.runLater(() -> addGames(content));
-                case "JOIN" -> Platform.runLater(() -> joinedGame(content));
-                case "ERROR" -> Platform.runLater(() -> popUpError(content));
-                case "MSG" -> Platform.runLater(() -> lobbyChat.receiveMessage(content));
-                case "NICK" -> Platform.runLater(() -> lobbyChat.handleChangeName(content));
-                case "USERS" -> Platform.runLater(() -> lobbyChat.handleUsers(content));
-            }
-        }
+    private void addListeners() {
+        communicator.addListener(PartedMsg.class, message -> partedGame());
+        communicator.addListener(HostMsg.class, message -> lobbyChat.setHost(true));
+        communicator.addListener(StartMsg.class, message -> {
+            channelsTimer.cancel();
+            lobbyChat.stopUsersTimer();
+            gameWindow.startBattle();
+        });
+        communicator.addListener(ChannelsMsg.class, message -> addGames(message.channels()));
+        communicator.addListener(JoinMsg.class, message -> joinedGame(message.channel()));
+        communicator.addListener(ErrorMsg.class, message -> popUpError(message.error()));
+        communicator.addListener(ChatMsg.class,
+            message -> lobbyChat.receiveMessage(message.user(), message.text()));
+        communicator.addListener(NickMsg.class, message -> lobbyChat.handleChangeName(message));
+        communicator.addListener(UsersMsg.class, message -> lobbyChat.handleUsers(message.users()));
     }
     
     /**
@@ -252,14 +241,12 @@ public class LobbyScene extends BaseScene {
     
     /**
      * Adds all the games available to the UI
-     * @param message a String with all the available games separated by '\n'
+     * @param games the names of all the available games
      */
-    private void addGames(String message) {
-        logger.info("Adding games {}", message);
-        var games = message.split("\n");
+    private void addGames(List<String> games) {
+        logger.info("Adding games {}", games);
         currentGamesBox.getChildren().clear();
         for (String game : games) {
-            if (game.equals("")) continue;
             var gameText = new Text(game);
             gameText.getStyleClass().add("channelItem");
             if (game.equals(currentGame)) { //highlight the current game
@@ -25,6 +25,13 @@ public class MenuScene extends BaseScene {
 
     private static final Logger logger = LogManager.getLogger(MenuScene.class);
     private ImageView title;
+    private Text boardSize;
+    private Text stressMode;
+    
+    /**
+     * The board sizes the board size option cycles through
+     */
+    private static final int[] BOARD_SIZES = {5, 8, 10, 16, 32, 64};
     
     /**
      * Create a new menu scene
@@ -80,6 +87,21 @@ public class MenuScene extends BaseScene {
         //Bind the text 'Multi Player' clicked action to startGame method in the menu TODO change this
         multiPlayer.setOnMouseClicked(this::openMultiplayer);
         
+        //board size
+        boardSize = new Text();
+        boardSize.getStyleClass().add("menuItem");
+        menuOptions.getChildren().add(boardSize);
+        //Bind the board size text clicked action to cycleBoardSize method in the menu
+        boardSize.setOnMouseClicked(this::cycleBoardSize);
+        
+        //stress mode
+        stressMode = new Text();
+        stressMode.getStyleClass().add("menuItem");
+        menuOptions.getChildren().add(stressMode);
+        //Bind the stress mode text clicked action to toggleStressMode method in the menu
+        stressMode.setOnMouseClicked(this::toggleStressMode);
+        updateSettingsText();
+        
         //instructions screen
         var instructions = new Text("How To Play");
         instructions.getStyleClass().add("menuItem");
@@ -115,6 +137,40 @@ public class MenuScene extends BaseScene {
         gameWindow.startChallenge();
     }
     
+    /**
+     * Handle when the board size Text is pressed
+     * Moves on to the next board size, back to the smallest after the largest
+     * @param event event
+     */
+    private void cycleBoardSize(MouseEvent event) {
+        var next = BOARD_SIZES[0];
+        for (var size : BOARD_SIZES) {
+            if (size > gameWindow.getBoardCols()) {
+                next = size;
+                break;
+            }
+        }
+        gameWindow.setBoardSize(next, next);
+        updateSettingsText();
+    }
+    
+    /**
+     * Handle when the stress mode Text is pressed
+     * @param event event
+     */
+    private void toggleStressMode(MouseEvent event) {
+        gameWindow.setStressMode(!gameWindow.isStressMode());
+        updateSettingsText();
+    }
+    
+    /**
+     * Show the current settings in the settings menu options
+     */
+    private void updateSettingsText() {
+        boardSize.setText("Board: " + gameWindow.getBoardCols() + " x " + gameWindow.getBoardRows());
+        stressMode.setText("Stress Mode: " + (gameWindow.isStressMode() ? "On" : "Off"));
+    }
+    
     /**
      * Handle when the 'How To Play' Text is pressed
      * @param event event
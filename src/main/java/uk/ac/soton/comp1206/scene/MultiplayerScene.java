@@ -76,7 +76,7 @@ public class MultiplayerScene extends ChallengeScene {
         logger.info("Starting a new multiplayer game");
         
         //create a new game
-        super.game = new MultiplayerGame(5, 5);
+        super.game = new MultiplayerGame(gameWindow.getBoardCols(), gameWindow.getBoardRows());
         game = (MultiplayerGame) super.game;
     }
     
@@ -98,6 +98,7 @@ public class MultiplayerScene extends ChallengeScene {
      */
     @Override
     protected void handleEndGame() {
+        cleanupGame();
         Multimedia.playMusicOnce("music/end.wav");
         gameWindow.startMultiplayerScores(game);
     }
@@ -130,13 +131,13 @@ public class MultiplayerScene extends ChallengeScene {
     
     /**
      * Displays the message in the UI
+     * @param user the player who sent the message
      * @param message the message to show
      */
-    private void showMessage(String message) {
-        var pair = message.split(":", 2);
-        var playerText = new Text(pair[0] + ": ");
+    private void showMessage(String user, String message) {
+        var playerText = new Text(user + ": ");
         playerText.getStyleClass().add("playerBox");
-        var messageText = new Text(pair[1]);
+        var messageText = new Text(message);
         messageText.getStyleClass().add("messages");
         
         lastMessageFlow.getChildren().clear();
@@ -29,6 +29,7 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.ScoreList;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.ServerMessage.HiscoresMsg;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -90,7 +91,7 @@ public class ScoresScene extends BaseScene {
     @Override
     public void initialise() {
         scene.setOnKeyPressed(this::keyboardInput); //keyboard input to escape scene
-        communicator.addListener(this::receiveCommunication);
+        communicator.addListener(HiscoresMsg.class, this::loadRemoteScores);
     
         //load scores
         loadScores();
@@ -331,37 +332,18 @@ public class ScoresScene extends BaseScene {
     }
     
     /**
-     * Parses the remote scores and adds them to the list property to display
-     * @param message the HISCORE message from the communicator
+     * Adds the top ten remote scores to the list property to display
+     * @param message the HISCORES message from the communicator
      */
-    private void loadRemoteScores(String message) {
+    private void loadRemoteScores(HiscoresMsg message) {
         logger.info("Loading the Remote Scores");
-        var lines = message.split("\n");
-        for (int i = 0; i < 10; i++) {
-            var line = lines[i];
-            var pairs = line.split(":");
-            var name = pairs[0];
-            var score = Integer.parseInt(pairs[1]);
-            remoteScores.add(new Pair<>(name, score));
-        }
+        var scores = message.scores();
+        remoteScores.addAll(scores.subList(0, Math.min(10, scores.size())));
         remoteList.update();
         
         Platform.exitNestedEventLoop(KEY, null); //reveal the scores
     }
     
-    /**
-     * This method parses the messages received from the communicator
-     * Calls the appropriate method to handle the message
-     * @param message received from the communicator
-     */
-    private void receiveCommunication(String message) {
-        logger.info("Received message");
-        var lines  = message.split(" ");
-        if (lines[0].equals("HISCORES")) {
-            Platform.runLater(() -> loadRemoteScores(lines[1]));
-        }
-    }
-    
     /**
      * Send a new HISCORE message to submit a new remote HISCORE
      * @param user the name of the local player
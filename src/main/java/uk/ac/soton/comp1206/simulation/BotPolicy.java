@@ -0,0 +1,51 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A BotPolicy decides where a simulated player plays the current piece.
+ * <p>
+ * A policy is used by one thread at a time and is reused for many games, so it should keep any
+ * working space it needs rather than allocating it for every move.
+ */
+public interface BotPolicy {
+
+    /**
+     * Play the current piece somewhere on the board, rotating it first if needed
+     * @param engine the game to play in
+     * @param random the random generator of the game, for any random choices
+     * @return if a move was made, false if the piece does not fit anywhere
+     */
+    public boolean play(GameEngine engine, SplittableRandom random);
+
+    /**
+     * Rotate the current piece to the given rotation and play it
+     * @param engine the game to play in
+     * @param x column
+     * @param y row
+     * @param rotation the rotation to play the piece in
+     * @return if the piece was played
+     */
+    public static boolean playAt(GameEngine engine, int x, int y, int rotation) {
+        var rotations = (rotation - engine.getCurrentPiece().getRotation()) & 3;
+        if (rotations != 0) engine.rotateCurrentPiece(rotations);
+        return engine.playPiece(x, y);
+    }
+
+    /**
+     * Create a policy by name
+     * @param name the name of the policy, random or greedy
+     * @param cols number of columns of the board it will play on
+     * @param rows number of rows of the board it will play on
+     * @return a new policy
+     * @throws IllegalArgumentException if there is no policy with that name
+     */
+    public static BotPolicy create(String name, int cols, int rows) {
+        return switch (name) {
+            case "random" -> new RandomPolicy(cols, rows);
+            case "greedy" -> new GreedyPolicy(cols, rows);
+            default -> throw new IllegalArgumentException("Unknown policy: " + name);
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.Arrays;
+
+/**
+ * A Distribution counts values into fixed width buckets, so any number of values can be summarised
+ * in a small, fixed amount of memory. Percentiles are accurate to the bucket width.
+ */
+public class Distribution {
+
+    private final String name;
+    private final int bucketWidth;
+    private long[] buckets = new long[64];
+    private long count = 0;
+    private long sum = 0;
+    private double sumOfSquares = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Create a new empty distribution
+     * @param name the name to report it under
+     * @param bucketWidth the width of each bucket
+     */
+    public Distribution(String name, int bucketWidth) {
+        this.name = name;
+        this.bucketWidth = bucketWidth;
+    }
+
+    /**
+     * Add a value
+     * @param value the value, which must not be negative
+     */
+    public void add(long value) {
+        var bucket = (int) (value / bucketWidth);
+        if (bucket >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(bucket + 1, buckets.length * 2));
+        }
+        buckets[bucket]++;
+        count++;
+        sum += value;
+        sumOfSquares += (double) value * value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add every value of another distribution with the same bucket width to this one
+     * @param other the distribution to merge in
+     */
+    public void merge(Distribution other) {
+        if (other.buckets.length > buckets.length) {
+            buckets = Arrays.copyOf(buckets, other.buckets.length);
+        }
+        for (int i = 0; i < other.buckets.length; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Get the value below which the given fraction of values fall, to the bucket width
+     * @param fraction the fraction, from 0 to 1
+     * @return the lower bound of the bucket the percentile falls in
+     */
+    public long percentile(double fraction) {
+        var target = (long) Math.ceil(fraction * count);
+        var seen = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target && seen > 0) {
+                return Math.max(min, (long) i * bucketWidth);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the mean of the values
+     * @return the mean
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get the standard deviation of the values
+     * @return the standard deviation
+     */
+    public double standardDeviation() {
+        if (count == 0) return 0;
+        var mean = mean();
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+
+    /**
+     * Summarise the distribution in one line
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        if (count == 0) return String.format("%-11s no values", name);
+        return String.format("%-11s mean %10.1f  sd %10.1f  min %8d  p10 %8d  p50 %8d  p90 %8d  p99 %8d  max %8d",
+            name, mean(), standardDeviation(), min, percentile(0.1), percentile(0.5),
+            percentile(0.9), percentile(0.99), max);
+    }
+}
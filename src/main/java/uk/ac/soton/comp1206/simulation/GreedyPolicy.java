@@ -0,0 +1,90 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementIndex;
+
+/**
+ * The GreedyPolicy plays the current piece wherever it clears the most lines straight away,
+ * picking at random between equally good placements.
+ */
+public class GreedyPolicy implements BotPolicy {
+
+    /**
+     * The legal placements of the current piece, reused between moves
+     */
+    private final PlacementIndex placements;
+
+    /**
+     * Create a new greedy policy for a board of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public GreedyPolicy(int cols, int rows) {
+        placements = new PlacementIndex(cols, rows);
+    }
+
+    @Override
+    public boolean play(GameEngine engine, SplittableRandom random) {
+        var grid = engine.getGrid();
+        var piece = engine.getCurrentPiece().getPiece();
+        grid.legalPlacements(piece, placements);
+
+        var best = -1;
+        var ties = 0;
+        var bestX = 0;
+        var bestY = 0;
+        var bestRotation = 0;
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            var mask = GamePiece.getMask(piece, rotation);
+            for (int y = 0; y < placements.getRows(); y++) {
+                var row = placements.getRow(rotation, y);
+                while (row != 0) {
+                    var x = Long.numberOfTrailingZeros(row);
+                    row &= row - 1;
+                    var lines = linesCleared(grid, mask, x, y);
+                    if (lines > best) {
+                        best = lines;
+                        ties = 1;
+                    } else if (lines < best || random.nextInt(++ties) != 0) {
+                        continue; //keep one of the equally good placements at random
+                    }
+                    bestX = x;
+                    bestY = y;
+                    bestRotation = rotation;
+                }
+            }
+        }
+        if (best < 0) return false;
+        return BotPolicy.playAt(engine, bestX, bestY, bestRotation);
+    }
+
+    /**
+     * Count the lines a legal placement would fill
+     * @param grid the grid
+     * @param mask the shape mask of the piece
+     * @param x the column of the centre of the piece
+     * @param y the row of the centre of the piece
+     * @return the number of rows and columns which would be full
+     */
+    private static int linesCleared(Grid grid, int mask, int x, int y) {
+        var cols = grid.getCols();
+        var rows = grid.getRows();
+        var fullRow = cols == Grid.MAX_COLS ? -1L : (1L << cols) - 1;
+        var lines = 0;
+        for (int pieceY = 0; pieceY < 3; pieceY++) {
+            var pieceRow = (mask >>> (pieceY * 3)) & 0b111;
+            if (pieceRow == 0) continue;
+            var blocks = x == 0 ? (long) pieceRow >>> 1 : (long) pieceRow << (x - 1);
+            if ((grid.getRow(y + pieceY - 1) | blocks) == fullRow) lines++;
+        }
+        for (int pieceX = 0; pieceX < 3; pieceX++) {
+            var pieceColumn = Integer.bitCount(mask & (0b001001001 << pieceX));
+            if (pieceColumn == 0) continue;
+            if (grid.getColumnCount(x + pieceX - 1) + pieceColumn == rows) lines++;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceSource;
+
+/**
+ * The PooledPieceSource deals seeded random pieces like a SeededPieceSource, but reuses a small
+ * pool of GamePiece objects instead of creating a new one for every piece, so simulations make no
+ * garbage per move.
+ * <p>
+ * This is only safe because an engine holds on to the two pieces dealt most recently and no others.
+ * Each piece type has three pooled objects which are dealt in turn, so a pooled object is never
+ * dealt again while the engine still holds it. Pieces from this source must not be kept by anything
+ * else, such as a UI.
+ */
+public class PooledPieceSource implements PieceSource {
+
+    /**
+     * The number of pooled objects of each piece type
+     */
+    private static final int POOL_SIZE = 3;
+
+    private final GamePiece[][] pool = new GamePiece[GamePiece.PIECES][POOL_SIZE];
+    private final int[] next = new int[GamePiece.PIECES];
+    private SplittableRandom random;
+
+    /**
+     * Create a new source with the given seed
+     * @param seed the seed to generate pieces from
+     */
+    public PooledPieceSource(long seed) {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                pool[piece][i] = GamePiece.createPiece(piece);
+            }
+        }
+        reseed(seed);
+    }
+
+    /**
+     * Start dealing a new sequence of pieces from the given seed
+     * @param seed the seed to generate pieces from
+     */
+    public void reseed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Get the next random piece, in its starting rotation
+     * @return the next piece
+     */
+    @Override
+    public GamePiece nextPiece() {
+        var piece = random.nextInt(GamePiece.PIECES);
+        var gamePiece = pool[piece][next[piece]];
+        next[piece] = (next[piece] + 1) % POOL_SIZE;
+        gamePiece.rotate(-gamePiece.getRotation());
+        return gamePiece;
+    }
+}
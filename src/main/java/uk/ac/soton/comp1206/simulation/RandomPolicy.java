@@ -0,0 +1,52 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementIndex;
+
+/**
+ * The RandomPolicy plays the current piece at a legal placement picked uniformly at random, over
+ * every position and rotation.
+ */
+public class RandomPolicy implements BotPolicy {
+
+    /**
+     * The legal placements of the current piece, reused between moves
+     */
+    private final PlacementIndex placements;
+
+    /**
+     * Create a new random policy for a board of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public RandomPolicy(int cols, int rows) {
+        placements = new PlacementIndex(cols, rows);
+    }
+
+    @Override
+    public boolean play(GameEngine engine, SplittableRandom random) {
+        engine.getGrid().legalPlacements(engine.getCurrentPiece().getPiece(), placements);
+        var count = placements.count();
+        if (count == 0) return false;
+
+        //find the chosen placement by counting through the set bits
+        var chosen = random.nextInt(count);
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            for (int y = 0; y < placements.getRows(); y++) {
+                var row = placements.getRow(rotation, y);
+                var bits = Long.bitCount(row);
+                if (chosen >= bits) {
+                    chosen -= bits;
+                    continue;
+                }
+                for (int i = 0; i < chosen; i++) {
+                    row &= row - 1;
+                }
+                return BotPolicy.playAt(engine, Long.numberOfTrailingZeros(row), y, rotation);
+            }
+        }
+        return false;
+    }
+}
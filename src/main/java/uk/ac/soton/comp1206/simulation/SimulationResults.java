@@ -0,0 +1,62 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.io.PrintStream;
+
+/**
+ * The SimulationResults hold the distributions of the outcomes of a set of simulated games.
+ */
+public class SimulationResults {
+
+    private long games = 0;
+    private final Distribution scores = new Distribution("score", 10);
+    private final Distribution levels = new Distribution("level", 1);
+    private final Distribution livesLost = new Distribution("lives lost", 1);
+    private final Distribution lengths = new Distribution("moves", 1);
+
+    /**
+     * Add the outcome of a game
+     * @param score the final score
+     * @param level the final level
+     * @param lives the number of lives lost
+     * @param moves the number of pieces played
+     */
+    public void add(int score, int level, int lives, int moves) {
+        games++;
+        scores.add(score);
+        levels.add(level);
+        livesLost.add(lives);
+        lengths.add(moves);
+    }
+
+    /**
+     * Add the outcomes of another set of games to these results
+     * @param other the results to merge in
+     */
+    public void merge(SimulationResults other) {
+        games += other.games;
+        scores.merge(other.scores);
+        levels.merge(other.levels);
+        livesLost.merge(other.livesLost);
+        lengths.merge(other.lengths);
+    }
+
+    /**
+     * Get the number of games
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Print a report of the distributions
+     * @param out where to print the report
+     */
+    public void report(PrintStream out) {
+        out.println("games       " + games);
+        out.println(scores);
+        out.println(levels);
+        out.println(livesLost);
+        out.println(lengths);
+    }
+}
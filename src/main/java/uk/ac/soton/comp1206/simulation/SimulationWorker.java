@@ -0,0 +1,99 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.event.GameEngineListener;
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A SimulationWorker plays simulated games one after another on a single thread, collecting their
+ * outcomes. Its policy, piece source and results are reused for every game it plays.
+ * <p>
+ * Time is simulated: every move takes the configured thinking time, and the timer runs out when the
+ * time since it was last reset passes the engine's timer delay, or when no move is possible.
+ */
+public class SimulationWorker implements GameEngineListener {
+
+    private final int cols;
+    private final int rows;
+    private final long seed;
+    private final int moveTime;
+    private final int maxMoves;
+    private final BotPolicy policy;
+    private final PooledPieceSource pieceSource;
+    private final SimulationResults results = new SimulationResults();
+
+    private int timeLeft;
+    private int livesLost;
+
+    /**
+     * Create a new worker
+     * @param policy the name of the bot policy to play with
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed the seed of the whole simulation
+     * @param moveTime the time each move takes, in ms
+     * @param maxMoves the number of moves after which a game is stopped
+     */
+    public SimulationWorker(String policy, int cols, int rows, long seed, int moveTime, int maxMoves) {
+        this.cols = cols;
+        this.rows = rows;
+        this.seed = seed;
+        this.moveTime = moveTime;
+        this.maxMoves = maxMoves;
+        this.policy = BotPolicy.create(policy, cols, rows);
+        this.pieceSource = new PooledPieceSource(seed);
+    }
+
+    /**
+     * Play one game. Each game gets its own seed from its number, so the results do not depend on
+     * which worker plays it.
+     * @param game the number of the game
+     */
+    public void play(int game) {
+        var gameSeed = seed + game * 0x9E3779B97F4A7C15L;
+        var random = new SplittableRandom(~gameSeed);
+        pieceSource.reseed(gameSeed);
+        livesLost = 0;
+
+        var engine = new GameEngine(cols, rows, pieceSource);
+        engine.setListener(this);
+        engine.start();
+
+        var moves = 0;
+        while (!engine.isEnded() && moves < maxMoves) {
+            timeLeft -= moveTime;
+            if (timeLeft > 0 && policy.play(engine, random)) {
+                moves++;
+            } else {
+                engine.timerExpired();
+            }
+        }
+        results.add(engine.getScore(), engine.getLevel(), livesLost, moves);
+    }
+
+    /**
+     * Add the results of another worker to this one
+     * @param other the other worker
+     */
+    public void merge(SimulationWorker other) {
+        results.merge(other.results);
+    }
+
+    /**
+     * Get the results of the games played by this worker
+     * @return the results
+     */
+    public SimulationResults getResults() {
+        return results;
+    }
+
+    @Override
+    public void timerReset(int delay) {
+        timeLeft = delay;
+    }
+
+    @Override
+    public void loseLife() {
+        livesLost++;
+    }
+}
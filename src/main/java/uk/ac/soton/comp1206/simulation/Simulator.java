@@ -0,0 +1,74 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.HashMap;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+
+/**
+ * The Simulator plays a large number of TetrECS games with a bot policy on the headless engine,
+ * spread over every core, and reports the distributions of the scores, levels, lives lost and game
+ * lengths. It is used to balance the scoring and timer rules.
+ * <p>
+ * Arguments, all optional:
+ * <pre>
+ * --games=N        number of games to play (10000)
+ * --policy=NAME    random or greedy (greedy)
+ * --size=N         board size, or --cols=N and --rows=N (5)
+ * --seed=N         seed of the whole simulation (0)
+ * --move-time=MS   simulated time each move takes (2000)
+ * --max-moves=N    number of moves after which a game is stopped (100000)
+ * </pre>
+ */
+public class Simulator {
+
+    private static final Logger logger = LogManager.getLogger(Simulator.class);
+
+    /**
+     * Run the simulation
+     * @param args the arguments
+     */
+    public static void main(String[] args) {
+        //the engine logs every move at debug, which would swamp the simulation
+        Configurator.setRootLevel(Level.WARN);
+
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            var split = arg.indexOf('=');
+            if (!arg.startsWith("--") || split < 0) {
+                System.err.println("Unrecognised argument: " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+
+        try {
+            var games = Integer.parseInt(options.getOrDefault("games", "10000"));
+            var policy = options.getOrDefault("policy", "greedy");
+            var size = options.getOrDefault("size", "5");
+            var cols = Integer.parseInt(options.getOrDefault("cols", size));
+            var rows = Integer.parseInt(options.getOrDefault("rows", size));
+            var seed = Long.parseLong(options.getOrDefault("seed", "0"));
+            var moveTime = Integer.parseInt(options.getOrDefault("move-time", "2000"));
+            var maxMoves = Integer.parseInt(options.getOrDefault("max-moves", "100000"));
+            BotPolicy.create(policy, cols, rows); //check the policy exists before starting
+
+            System.out.printf("Simulating %d %s games on a %d x %d board over %d cores%n",
+                games, policy, cols, rows, Runtime.getRuntime().availableProcessors());
+            var start = System.nanoTime();
+            var worker = IntStream.range(0, games).parallel().collect(
+                () -> new SimulationWorker(policy, cols, rows, seed, moveTime, maxMoves),
+                SimulationWorker::play,
+                SimulationWorker::merge);
+            var seconds = (System.nanoTime() - start) / 1e9;
+
+            worker.getResults().report(System.out);
+            System.out.printf("took %.2fs, %.0f games/s%n", seconds, games / seconds);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid arguments: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
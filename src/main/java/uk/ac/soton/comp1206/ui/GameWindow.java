@@ -10,6 +10,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.Grid;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.scene.*;
@@ -25,6 +26,21 @@ public class GameWindow {
 
     private static final Logger logger = LogManager.getLogger(GameWindow.class);
 
+    /**
+     * The smallest board size, pieces need at least 3 x 3 blocks
+     */
+    public static final int MIN_BOARD_SIZE = 3;
+
+    /**
+     * The largest board size supported by the grid model
+     */
+    public static final int MAX_BOARD_SIZE = Grid.MAX_COLS;
+
+    /**
+     * The board size used unless another one is chosen
+     */
+    public static final int DEFAULT_BOARD_SIZE = 5;
+
     private final int width;
     private final int height;
 
@@ -35,6 +51,36 @@ public class GameWindow {
 
     final Communicator communicator;
 
+    /**
+     * The number of columns of the game board
+     */
+    private int boardCols = DEFAULT_BOARD_SIZE;
+
+    /**
+     * The number of rows of the game board
+     */
+    private int boardRows = DEFAULT_BOARD_SIZE;
+
+    /**
+     * Whether single player games should play themselves as fast as possible
+     */
+    private boolean stressMode = false;
+
+    /**
+     * The seed for the pieces of single player games, or null for a random seed
+     */
+    private Long seed = null;
+
+    /**
+     * The file to write the performance histograms of each game to, or null
+     */
+    private String perfLogFile = null;
+
+    /**
+     * The file to save the log of each single player game to, or null
+     */
+    private String gameLogFile = null;
+
     /**
      * Create a new GameWindow attached to the given stage with the specified width and height
      * @param stage stage
@@ -206,4 +252,100 @@ public class GameWindow {
     public Communicator getCommunicator() {
         return communicator;
     }
+
+    /**
+     * Set the size of the game board used by new games, clamped to the supported sizes
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public void setBoardSize(int cols, int rows) {
+        boardCols = Math.max(MIN_BOARD_SIZE, Math.min(MAX_BOARD_SIZE, cols));
+        boardRows = Math.max(MIN_BOARD_SIZE, Math.min(MAX_BOARD_SIZE, rows));
+        logger.info("Board size set to {} x {}", boardCols, boardRows);
+    }
+
+    /**
+     * Get the number of columns of the game board
+     * @return number of columns
+     */
+    public int getBoardCols() {
+        return boardCols;
+    }
+
+    /**
+     * Get the number of rows of the game board
+     * @return number of rows
+     */
+    public int getBoardRows() {
+        return boardRows;
+    }
+
+    /**
+     * Set whether single player games should play themselves as fast as possible
+     * @param stressMode if stress mode is on
+     */
+    public void setStressMode(boolean stressMode) {
+        logger.info("Stress mode set to {}", stressMode);
+        this.stressMode = stressMode;
+    }
+
+    /**
+     * Get whether single player games should play themselves as fast as possible
+     * @return if stress mode is on
+     */
+    public boolean isStressMode() {
+        return stressMode;
+    }
+
+    /**
+     * Set the seed for the pieces of single player games, so a game can be replayed exactly
+     * @param seed the seed, or null for a random seed
+     */
+    public void setSeed(Long seed) {
+        logger.info("Piece seed set to {}", seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Get the seed for the pieces of single player games
+     * @return the seed, or null for a random seed
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the file to write the performance histograms of each game to. Performance is measured
+     * for every game while this is set.
+     * @param perfLogFile the file, or null to only measure while the debug overlay is shown
+     */
+    public void setPerfLogFile(String perfLogFile) {
+        logger.info("Performance log set to {}", perfLogFile);
+        this.perfLogFile = perfLogFile;
+    }
+
+    /**
+     * Get the file to write the performance histograms of each game to
+     * @return the file, or null
+     */
+    public String getPerfLogFile() {
+        return perfLogFile;
+    }
+
+    /**
+     * Set the file to save the log of each single player game to when it ends
+     * @param gameLogFile the file, or null to not save the logs
+     */
+    public void setGameLogFile(String gameLogFile) {
+        logger.info("Game log set to {}", gameLogFile);
+        this.gameLogFile = gameLogFile;
+    }
+
+    /**
+     * Get the file to save the log of each single player game to
+     * @return the file, or null
+     */
+    public String getGameLogFile() {
+        return gameLogFile;
+    }
 }
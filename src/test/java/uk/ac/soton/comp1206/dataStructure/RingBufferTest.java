@@ -0,0 +1,86 @@
+package uk.ac.soton.comp1206.dataStructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks RingBuffer keeps the newest elements in order as it wraps around, and reports the right
+ * changes to its listeners
+ */
+class RingBufferTest {
+
+    @Test
+    void keepsNewestElementsInOrderAcrossWraps() {
+        var buffer = new RingBuffer<Integer>(3);
+        var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 10; i++) {
+            buffer.add(i);
+            expected.add(i);
+            if (expected.size() > 3) expected.remove(0);
+            assertEquals(expected, List.copyOf(buffer), "after adding " + i);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.getCapacity());
+    }
+
+    @Test
+    void capacityOfOneHoldsLatest() {
+        var buffer = new RingBuffer<String>(1);
+        buffer.add("a");
+        buffer.add("b");
+        assertEquals(List.of("b"), List.copyOf(buffer));
+    }
+
+    @Test
+    void addingWhenFullReportsOldestRemovedAndNewAdded() {
+        var buffer = new RingBuffer<String>(2);
+        buffer.add("a");
+        buffer.add("b");
+        var changes = new ArrayList<String>();
+        buffer.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) changes.add("removed " + change.getRemoved() + " at " + change.getFrom());
+                if (change.wasAdded()) changes.add("added " + change.getAddedSubList() + " at " + change.getFrom());
+            }
+        });
+        buffer.add("c");
+        assertEquals(List.of("b", "c"), List.copyOf(buffer));
+        assertTrue(changes.contains("removed [a] at 0"), changes.toString());
+        assertTrue(changes.contains("added [c] at 1"), changes.toString());
+    }
+
+    @Test
+    void clearEmptiesAndStartsAgain() {
+        var buffer = new RingBuffer<Integer>(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i);
+        }
+        var removed = new ArrayList<Integer>();
+        buffer.addListener((ListChangeListener<Integer>) change -> {
+            while (change.next()) {
+                removed.addAll(change.getRemoved());
+            }
+        });
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(List.of(2, 3, 4), removed);
+
+        buffer.add(7);
+        assertEquals(List.of(7), List.copyOf(buffer));
+    }
+
+    @Test
+    void rejectsBadIndexesAndCapacity() {
+        var buffer = new RingBuffer<Integer>(2);
+        buffer.add(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<Integer>(0));
+    }
+}
@@ -0,0 +1,207 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the binary encoding of GameLog survives being written and read back, and that damaged
+ * logs are rejected
+ */
+class GameLogTest {
+
+    /**
+     * A clock which only moves when told to
+     */
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    /**
+     * Write a log to bytes
+     * @param log the log
+     * @return the saved log
+     * @throws IOException never
+     */
+    private static byte[] save(GameLog log) throws IOException {
+        var out = new ByteArrayOutputStream();
+        log.writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Read a log from bytes
+     * @param bytes the saved log
+     * @return the log
+     * @throws IOException if it is not a whole game log
+     */
+    private static GameLog load(byte[] bytes) throws IOException {
+        return GameLog.readFrom(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    void roundTripKeepsEveryEvent() throws IOException {
+        var log = new GameLog(64, 200, clock::get);
+        log.seed(-1L);
+        clock.addAndGet(5);
+        log.piece(14);
+        log.rotate(-1);
+        clock.addAndGet(1L << 40);
+        log.swap();
+        log.place(63, 199);
+        clock.addAndGet(127);
+        log.timer();
+        log.seed(Long.MAX_VALUE);
+
+        var read = load(save(log));
+        assertEquals(64, read.getCols());
+        assertEquals(200, read.getRows());
+        assertEquals(1_000, read.getStartTime());
+        assertEquals(log.getEventCount(), read.getEventCount());
+        assertEquals(log.getSize(), read.getSize());
+
+        var cursor = read.cursor();
+        assertTrue(cursor.next());
+        assertEquals(GameLog.SEED, cursor.getType());
+        assertEquals(-1L, cursor.getSeed());
+        assertEquals(1_000, cursor.getTime());
+
+        assertTrue(cursor.next());
+        assertEquals(GameLog.PIECE, cursor.getType());
+        assertEquals(14, cursor.getPiece());
+        assertEquals(1_005, cursor.getTime());
+
+        assertTrue(cursor.next());
+        assertEquals(GameLog.ROTATE, cursor.getType());
+        assertEquals(3, cursor.getRotations());
+
+        assertTrue(cursor.next());
+        assertEquals(GameLog.SWAP, cursor.getType());
+        assertEquals(1_005 + (1L << 40), cursor.getTime());
+
+        assertTrue(cursor.next());
+        assertEquals(GameLog.PLACE, cursor.getType());
+        assertEquals(63, cursor.getX());
+        assertEquals(199, cursor.getY());
+
+        assertTrue(cursor.next());
+        assertEquals(GameLog.TIMER, cursor.getType());
+        assertEquals(1_005 + (1L << 40) + 127, cursor.getTime());
+
+        assertTrue(cursor.next());
+        assertEquals(GameLog.SEED, cursor.getType());
+        assertEquals(Long.MAX_VALUE, cursor.getSeed());
+
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void typicalEventsAreSmall() {
+        var log = new GameLog(5, 5, clock::get);
+        clock.addAndGet(100);
+        log.piece(3);
+        clock.addAndGet(1_500);
+        log.place(2, 4);
+        assertEquals(3 + 4, log.getSize());
+    }
+
+    @Test
+    void cursorStopsAtTheEndOfALiveLog() {
+        var log = new GameLog(5, 5, clock::get);
+        log.piece(1);
+        var cursor = log.cursor();
+        assertTrue(cursor.next());
+        assertFalse(cursor.next(), "the spare capacity of the buffer is not read");
+    }
+
+    @Test
+    void rejectsEveryTruncatedStream() throws IOException {
+        var log = new GameLog(10, 10, clock::get);
+        log.seed(123456789L);
+        log.piece(7);
+        log.place(9, 9);
+        log.timer();
+        var bytes = save(log);
+        for (int length = 0; length < bytes.length; length++) {
+            var cut = Arrays.copyOf(bytes, length);
+            assertThrows(IOException.class, () -> load(cut), "cut to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void rejectsEventCutPartWay() {
+        var log = new GameLog(5, 5, clock::get);
+        clock.addAndGet(1L << 30);
+        log.place(300, 300);
+        var bytes = new ByteArrayOutputStream();
+        bytes.writeBytes(new byte[] {'T', 'L', 'O', 'G'});
+        writeVarLong(bytes, 1);
+        writeVarLong(bytes, 5);
+        writeVarLong(bytes, 5);
+        writeVarLong(bytes, 1_000);
+        writeVarLong(bytes, 1);
+        //the size claims one byte less than the event takes
+        writeVarLong(bytes, log.getSize() - 1);
+        var event = new ByteArrayOutputStream();
+        try {
+            log.writeTo(event);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        var all = event.toByteArray();
+        bytes.write(all, all.length - log.getSize(), log.getSize() - 1);
+
+        var error = assertThrows(IOException.class, () -> load(bytes.toByteArray()));
+        assertEquals("Game log is truncated", error.getMessage());
+    }
+
+    @Test
+    void rejectsWrongEventCount() throws IOException {
+        var log = new GameLog(5, 5, clock::get);
+        log.piece(1);
+        log.piece(2);
+        var bytes = save(log);
+        //the event count is the byte before the size, both fit in one byte here
+        bytes[bytes.length - log.getSize() - 2] = 3;
+        assertThrows(IOException.class, () -> load(bytes));
+    }
+
+    @Test
+    void rejectsUnknownEventTypes() throws IOException {
+        var log = new GameLog(5, 5, clock::get);
+        log.piece(1);
+        log.timer();
+        var bytes = save(log);
+        //the timer event is one byte, its type in the low bits
+        for (int type = GameLog.TIMER + 1; type < 8; type++) {
+            bytes[bytes.length - 1] = (byte) type;
+            var error = assertThrows(IOException.class, () -> load(bytes));
+            assertEquals("Unknown event type " + type, error.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThrows(IOException.class, () -> load("TLOX".getBytes()));
+        assertThrows(IOException.class, () -> load(new byte[] {'T', 'L', 'O', 'G', 2}));
+    }
+
+    /**
+     * Write an unsigned varint, the same way the log does
+     * @param out the stream to write to
+     * @param value the value
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
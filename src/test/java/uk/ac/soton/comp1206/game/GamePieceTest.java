@@ -0,0 +1,131 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the precomputed rotation tables of GamePiece against the original rotation, which built a
+ * new grid for every turn
+ */
+class GamePieceTest {
+
+    /**
+     * The original shapes, by piece number, as a grid of x then y
+     */
+    private static final int[][][] ORIGINAL_SHAPES = {
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}},
+        {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}},
+        {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}},
+        {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}},
+        {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}},
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}},
+        {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}},
+        {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}},
+        {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}},
+        {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}},
+        {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}},
+        {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}},
+        {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}},
+        {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}},
+        {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}}
+    };
+
+    /**
+     * The original rotation, once to the right
+     * @param blocks the grid to rotate
+     * @return the rotated grid
+     */
+    private static int[][] originalRotate(int[][] blocks) {
+        int[][] rotated = new int[3][3];
+        rotated[2][0] = blocks[0][0];
+        rotated[1][0] = blocks[0][1];
+        rotated[0][0] = blocks[0][2];
+
+        rotated[2][1] = blocks[1][0];
+        rotated[1][1] = blocks[1][1];
+        rotated[0][1] = blocks[1][2];
+
+        rotated[2][2] = blocks[2][0];
+        rotated[1][2] = blocks[2][1];
+        rotated[0][2] = blocks[2][2];
+        return rotated;
+    }
+
+    /**
+     * Build the original block grid of a piece after a number of rotations
+     * @param piece piece number
+     * @param rotations number of rotations
+     * @return the block grid, holding the piece value
+     */
+    private static int[][] originalBlocks(int piece, int rotations) {
+        var blocks = new int[3][3];
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                blocks[x][y] = ORIGINAL_SHAPES[piece][x][y] * (piece + 1);
+            }
+        }
+        for (int i = 0; i < rotations; i++) {
+            blocks = originalRotate(blocks);
+        }
+        return blocks;
+    }
+
+    @Test
+    void blocksMatchOriginalRotation() {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            var gamePiece = GamePiece.createPiece(piece);
+            for (int rotation = 0; rotation < 8; rotation++) {
+                assertArrayEquals(originalBlocks(piece, rotation), gamePiece.getBlocks(),
+                    "piece " + piece + " rotation " + rotation);
+                gamePiece.rotate();
+            }
+        }
+    }
+
+    @Test
+    void createWithRotationMatchesRotatingOneAtATime() {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            for (int rotation = 0; rotation < 6; rotation++) {
+                var rotated = GamePiece.createPiece(piece, rotation);
+                assertArrayEquals(originalBlocks(piece, rotation), rotated.getBlocks());
+                assertEquals(rotation % GamePiece.ROTATIONS, rotated.getRotation());
+            }
+        }
+    }
+
+    @Test
+    void maskAndOffsetsMatchBlocks() {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                var blocks = originalBlocks(piece, rotation);
+                var mask = 0;
+                var count = 0;
+                for (int x = 0; x < 3; x++) {
+                    for (int y = 0; y < 3; y++) {
+                        if (blocks[x][y] != 0) {
+                            mask |= 1 << (y * 3 + x);
+                            count++;
+                        }
+                    }
+                }
+                assertEquals(mask, GamePiece.getMask(piece, rotation));
+                assertEquals(mask, GamePiece.createPiece(piece, rotation).getMask());
+
+                var offsets = GamePiece.getOffsets(piece, rotation);
+                assertEquals(count * 2, offsets.length);
+                for (int i = 0; i < offsets.length; i += 2) {
+                    assertEquals(piece + 1, blocks[offsets[i] + 1][offsets[i + 1] + 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnknownPieces() {
+        assertThrows(IndexOutOfBoundsException.class, () -> GamePiece.createPiece(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> GamePiece.createPiece(GamePiece.PIECES));
+    }
+}
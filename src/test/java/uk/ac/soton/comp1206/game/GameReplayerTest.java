@@ -0,0 +1,132 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.network.SendQueue;
+
+/**
+ * Checks a game saved to a GameLog and read back replays to the same state, including multiplayer
+ * games whose pieces arrive late or not at all
+ */
+class GameReplayerTest {
+
+    /**
+     * Play the current piece at the first place it fits
+     * @param engine the engine
+     * @return if it was played
+     */
+    private static boolean playAnywhere(GameEngine engine) {
+        var grid = engine.getGrid();
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                if (engine.getPieceSource().isPending(engine.getCurrentPiece())) return false;
+                if (grid.canPlayPiece(engine.getCurrentPiece(), x, y)) return engine.playPiece(x, y);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Save a log and read it back
+     * @param log the log
+     * @return the log as read back
+     * @throws IOException never
+     */
+    private static GameLog roundTrip(GameLog log) throws IOException {
+        var out = new ByteArrayOutputStream();
+        log.writeTo(out);
+        return GameLog.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * Check a replayed engine is in the same state as the one which played the game
+     * @param expected the engine which played the game
+     * @param replayed the replayed engine
+     */
+    private static void assertSameState(GameEngine expected, GameEngine replayed) {
+        assertEquals(expected.getScore(), replayed.getScore());
+        assertEquals(expected.getLevel(), replayed.getLevel());
+        assertEquals(expected.getLives(), replayed.getLives());
+        assertEquals(expected.getMultiplier(), replayed.getMultiplier());
+        assertEquals(expected.isEnded(), replayed.isEnded());
+        for (int y = 0; y < expected.getRows(); y++) {
+            assertEquals(expected.getGrid().getRow(y), replayed.getGrid().getRow(y), "row " + y);
+            for (int x = 0; x < expected.getCols(); x++) {
+                assertEquals(expected.getGrid().get(x, y), replayed.getGrid().get(x, y));
+            }
+        }
+    }
+
+    @Test
+    void seededGameReplaysToTheSameState() throws IOException {
+        var engine = new GameEngine(5, 5, new SeededPieceSource(42));
+        engine.setLog(new GameLog(5, 5));
+        engine.start();
+        for (int i = 0; i < 30 && !engine.isEnded(); i++) {
+            if (!playAnywhere(engine)) engine.timerExpired();
+            if (i % 4 == 0) engine.rotateCurrentPiece(i % 3 + 1);
+            if (i % 7 == 0) engine.swapCurrentPiece();
+        }
+
+        var replayer = new GameReplayer(roundTrip(engine.getLog()));
+        assertSameState(engine, replayer.replay());
+    }
+
+    @Test
+    void gameEndingOnAPendingPieceReplaysToTheEnd() throws IOException {
+        //the send queue is never connected, so the requests go nowhere and pieces arrive when told
+        var source = new NetworkPieceSource(new SendQueue(message -> { }));
+        var engine = new GameEngine(8, 8, source);
+        source.setOnPieceArrived(engine::pieceArrived);
+        engine.setLog(new GameLog(8, 8));
+
+        var random = new Random(7);
+        for (int i = 0; i < 6; i++) {
+            source.receivePiece(random.nextInt(GamePiece.PIECES));
+        }
+        engine.start();
+        //use up every piece which arrived, so the following piece is a placeholder
+        for (int i = 0; i < 5; i++) {
+            assertTrue(playAnywhere(engine));
+        }
+        assertTrue(source.isPending(engine.getFollowingPiece()));
+
+        //its piece arrives, and can be rotated and swapped like any other
+        source.receivePiece(random.nextInt(GamePiece.PIECES));
+        assertFalse(source.isPending(engine.getFollowingPiece()));
+        engine.swapCurrentPiece();
+        engine.rotateCurrentPiece(2);
+        assertTrue(playAnywhere(engine));
+        assertTrue(playAnywhere(engine));
+
+        //now the current piece is a placeholder which cannot be played
+        assertTrue(source.isPending(engine.getCurrentPiece()));
+        assertFalse(engine.playPiece(2, 2));
+
+        //it is thrown away when the timer runs out, and its piece arrives afterwards
+        engine.timerExpired();
+        source.receivePiece(random.nextInt(GamePiece.PIECES));
+
+        //the game ends with pieces still on their way, which are never recorded
+        while (!engine.isEnded()) {
+            engine.timerExpired();
+        }
+        assertTrue(source.isPending(engine.getCurrentPiece()));
+
+        var log = roundTrip(engine.getLog());
+        var replayer = new GameReplayer(log);
+        assertSameState(engine, replayer.replay());
+
+        //every point along the way replays too
+        for (int events = 0; events <= log.getEventCount(); events++) {
+            replayer.replay(events);
+        }
+    }
+}
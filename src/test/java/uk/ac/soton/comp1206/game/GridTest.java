@@ -0,0 +1,237 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the bitboard placement and line clearing of Grid on boards built by hand
+ */
+class GridTest {
+
+    /**
+     * Build a grid from rows of text, where '.' is empty and anything else is a block
+     * @param lines the rows, top first, all the same length
+     * @return the grid
+     */
+    private static Grid board(String... lines) {
+        var grid = new Grid(lines[0].length(), lines.length);
+        for (int y = 0; y < lines.length; y++) {
+            for (int x = 0; x < lines[y].length(); x++) {
+                if (lines[y].charAt(x) != '.') grid.set(x, y, 1);
+            }
+        }
+        grid.commit();
+        return grid;
+    }
+
+    /**
+     * Check a placement block by block, the way the grid did before the bitboard
+     * @param grid the grid
+     * @param piece the piece
+     * @param x the column of the centre
+     * @param y the row of the centre
+     * @return if every block of the piece is on the grid and empty
+     */
+    private static boolean fitsByBlocks(Grid grid, GamePiece piece, int x, int y) {
+        var blocks = piece.getBlocks();
+        for (int blockX = 0; blockX < 3; blockX++) {
+            for (int blockY = 0; blockY < 3; blockY++) {
+                if (blocks[blockX][blockY] != 0 && grid.get(x + blockX - 1, y + blockY - 1) != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check canPlayPiece and legalPlacements against the block by block check for every piece,
+     * rotation and centre, including centres just off the grid
+     * @param grid the grid
+     */
+    private static void assertPlacementsMatch(Grid grid) {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            var index = grid.legalPlacements(piece);
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                var gamePiece = GamePiece.createPiece(piece, rotation);
+                for (int y = -1; y <= grid.getRows(); y++) {
+                    for (int x = -1; x <= grid.getCols(); x++) {
+                        var expected = fitsByBlocks(grid, gamePiece, x, y);
+                        var where = gamePiece + " rotation " + rotation + " at " + x + "," + y;
+                        assertEquals(expected, grid.canPlayPiece(gamePiece, x, y), where);
+                        if (x >= 0 && x < grid.getCols() && y >= 0 && y < grid.getRows()) {
+                            assertEquals(expected, index.isLegal(x, y, rotation), where);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void placementsOnEmptyBoard() {
+        assertPlacementsMatch(new Grid(5, 5));
+    }
+
+    @Test
+    void placementsOnPartlyFilledBoard() {
+        assertPlacementsMatch(board(
+            "x...x",
+            ".x...",
+            "..x..",
+            "...xx",
+            "x...."));
+    }
+
+    @Test
+    void placementsOnNonSquareBoard() {
+        assertPlacementsMatch(board(
+            "..x.....x.",
+            "x.........",
+            "....xx...."));
+    }
+
+    @Test
+    void placementsOnWidestBoard() {
+        var grid = new Grid(Grid.MAX_COLS, 4);
+        for (int x = 0; x < Grid.MAX_COLS; x += 3) {
+            grid.set(x, x % 4, 1);
+        }
+        grid.set(Grid.MAX_COLS - 1, 2, 1);
+        assertPlacementsMatch(grid);
+    }
+
+    @Test
+    void fullBoardHasNoPlacements() {
+        var grid = board("xxx", "xxx", "xxx");
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            assertTrue(grid.legalPlacements(piece).isEmpty());
+        }
+    }
+
+    @Test
+    void nothingFullLeavesBoardAlone() {
+        var grid = board(
+            "xxxx.",
+            "x....",
+            "x....",
+            "x....",
+            ".....");
+        var cleared = new long[] {7, 7, 7, 7, 7};
+        assertEquals(0, grid.clearLines(1, 1, cleared));
+        assertArrayEquals(new long[] {7, 7, 7, 7, 7}, cleared, "cleared is only written when lines are cleared");
+        assertEquals(7, countBlocks(grid));
+    }
+
+    @Test
+    void clearsFullRow() {
+        var grid = board(
+            ".....",
+            "xxxxx",
+            "x....",
+            ".....");
+        var cleared = new long[4];
+        assertEquals(1, grid.clearLines(2, 2, cleared));
+        assertArrayEquals(new long[] {0, 0b11111, 0, 0}, cleared);
+        assertEquals(0, grid.getRow(1));
+        assertEquals(1, grid.get(0, 2));
+        assertFalse(grid.isRowFull(1));
+        assertEquals(1, grid.getColumnCount(0));
+    }
+
+    @Test
+    void clearsFullColumn() {
+        var grid = board(
+            "..x..",
+            "..x.x",
+            "..x..");
+        var cleared = new long[3];
+        assertEquals(1, grid.clearLines(3, 1, cleared));
+        assertArrayEquals(new long[] {0b100, 0b100, 0b100}, cleared);
+        assertEquals(0, grid.getColumnCount(2));
+        assertEquals(1, grid.get(4, 1));
+    }
+
+    @Test
+    void clearsCrossingRowAndColumnOnce() {
+        var grid = board(
+            "...x",
+            "xxxx",
+            "...x");
+        var cleared = new long[3];
+        assertEquals(2, grid.clearLines(2, 1, cleared));
+        assertArrayEquals(new long[] {0b1000, 0b1111, 0b1000}, cleared);
+        assertEquals(0, countBlocks(grid));
+        for (int x = 0; x < 4; x++) {
+            assertEquals(0, grid.getColumnCount(x));
+        }
+    }
+
+    @Test
+    void ignoresFullLinesAwayFromThePiece() {
+        var grid = board(
+            "xxxxx",
+            ".....",
+            ".....",
+            ".....",
+            "x....");
+        var cleared = new long[5];
+        assertEquals(0, grid.clearLines(3, 3, cleared));
+        assertTrue(grid.isRowFull(0));
+    }
+
+    @Test
+    void clearsWidestRow() {
+        var grid = new Grid(Grid.MAX_COLS, 3);
+        for (int x = 0; x < Grid.MAX_COLS; x++) {
+            grid.set(x, 2, 1);
+        }
+        var cleared = new long[3];
+        assertEquals(1, grid.clearLines(Grid.MAX_COLS - 1, 2, cleared));
+        assertArrayEquals(new long[] {0, 0, -1L}, cleared);
+        assertEquals(0, grid.getRow(2));
+    }
+
+    @Test
+    void clearsMarkBlocksDirty() {
+        var grid = board("xxx", "...", "...");
+        grid.clearLines(1, 0, new long[3]);
+        assertEquals(0b111, grid.getDirtyRow(0));
+        assertEquals(0, grid.getDirtyRow(1));
+    }
+
+    @Test
+    void setOutsideTheGridChangesNothing() {
+        var grid = board(
+            "x....",
+            ".....",
+            "....x");
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(5, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(-1, 1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(0, 3, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(0, -1, 1));
+        assertEquals(0, grid.get(0, 1), "a column past the end does not wrap onto the next row");
+        assertEquals(0b00001, grid.getRow(0));
+        assertEquals(0, grid.getRow(1));
+        assertEquals(0b10000, grid.getRow(2));
+        assertEquals(0, grid.getDirtyRow(0));
+        assertEquals(1, grid.getColumnCount(0));
+        assertEquals(2, countBlocks(grid));
+    }
+
+    /**
+     * Count the blocks on a grid
+     * @param grid the grid
+     * @return the number of occupied blocks
+     */
+    private static int countBlocks(Grid grid) {
+        var count = 0;
+        for (int y = 0; y < grid.getRows(); y++) {
+            count += Long.bitCount(grid.getRow(y));
+        }
+        return count;
+    }
+}
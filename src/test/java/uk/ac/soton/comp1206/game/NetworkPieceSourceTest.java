@@ -0,0 +1,200 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.network.SendQueue;
+
+/**
+ * Checks how many pieces NetworkPieceSource keeps ahead and how arriving pieces fill its
+ * placeholders. The send queue is left disconnected, so its depth is the number of pieces requested.
+ */
+class NetworkPieceSourceTest {
+
+    /**
+     * A clock which only moves when told to, in nanoseconds
+     */
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    private final SendQueue sendQueue = new SendQueue(message -> { });
+
+    private final NetworkPieceSource source = new NetworkPieceSource(sendQueue, clock::get);
+
+    /**
+     * The placeholders filled so far and the pieces which arrived for them, in order
+     */
+    private final List<GamePiece> filled = new ArrayList<>();
+
+    {
+        source.setOnPieceArrived((placeholder, piece) -> {
+            filled.add(placeholder);
+            filled.add(piece);
+        });
+    }
+
+    /**
+     * Move the clock on
+     * @param millis the time to move it on by, in ms
+     */
+    private void advance(long millis) {
+        clock.addAndGet(millis * 1_000_000);
+    }
+
+    /**
+     * Check enough pieces are queued or on their way
+     */
+    private void assertToppedUp() {
+        assertTrue(source.getPiecesAhead() >= source.getLowWater(),
+            source.getPiecesAhead() + " ahead, low water " + source.getLowWater());
+    }
+
+    @Test
+    void prefetchRequestsTheFirstPieces() {
+        source.prefetch();
+        assertEquals(NetworkPieceSource.PREFETCH, sendQueue.getDepth());
+        assertEquals(NetworkPieceSource.PREFETCH, source.getPiecesAhead());
+    }
+
+    @Test
+    void slowRoundTripIsClampedToTheMost() {
+        source.prefetch();
+        for (int i = 0; i < 10; i++) {
+            advance(10_000);
+            source.receivePiece(i % GamePiece.PIECES);
+            source.nextPiece();
+            assertToppedUp();
+        }
+        //dealing much faster than the 10s round trip would need more than the most
+        for (int i = 0; i < 20; i++) {
+            advance(1);
+            source.nextPiece();
+            assertToppedUp();
+        }
+        assertEquals(20, source.getLowWater());
+    }
+
+    @Test
+    void fastRoundTripIsClampedToTheFewest() {
+        source.prefetch();
+        advance(1);
+        for (int i = 0; i < NetworkPieceSource.PREFETCH; i++) {
+            source.receivePiece(i);
+        }
+        //each piece dealt is requested again, and answered 1ms later
+        for (int i = 0; i < 10; i++) {
+            advance(10_000);
+            source.nextPiece();
+            assertToppedUp();
+            advance(1);
+            source.receivePiece(i % GamePiece.PIECES);
+        }
+        assertEquals(3, source.getLowWater());
+    }
+
+    @Test
+    void placeholderIsToppedUpPast() {
+        source.prefetch();
+        var placeholder = source.nextPiece();
+        assertTrue(source.isPending(placeholder));
+        //the piece on its way for the placeholder does not count
+        assertEquals(NetworkPieceSource.PREFETCH + 1, sendQueue.getDepth());
+        assertToppedUp();
+
+        advance(1_000);
+        source.nextPiece();
+        assertEquals(NetworkPieceSource.PREFETCH + 2, sendQueue.getDepth());
+        assertToppedUp();
+    }
+
+    @Test
+    void arrivalsFillPlaceholdersOldestFirst() {
+        source.prefetch();
+        var first = source.nextPiece();
+        var second = source.nextPiece();
+        var third = source.nextPiece();
+
+        source.receivePiece(4);
+        source.receivePiece(9);
+        assertEquals(4, filled.size());
+        assertSame(first, filled.get(0));
+        assertEquals(4, filled.get(1).getPiece());
+        assertSame(second, filled.get(2));
+        assertEquals(9, filled.get(3).getPiece());
+        assertFalse(source.isPending(first));
+        assertFalse(source.isPending(second));
+        assertTrue(source.isPending(third));
+
+        source.receivePiece(2);
+        assertSame(third, filled.get(4));
+        assertFalse(source.isPending(third));
+
+        //once every placeholder is filled, pieces are queued and dealt in the order they arrived
+        source.receivePiece(7);
+        source.receivePiece(1);
+        assertEquals(6, filled.size());
+        assertEquals(7, source.nextPiece().getPiece());
+        assertEquals(1, source.nextPiece().getPiece());
+        assertToppedUp();
+    }
+
+    /**
+     * Connect the send queue until it has sent the given number of piece requests in all, then drop
+     * the connection
+     * @param total the number of piece requests sent once it is done
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void sendAndDrop(long total) throws InterruptedException {
+        sendQueue.setConnected(true);
+        for (int i = 0; i < 500 && sendQueue.getPiecesSent() < total; i++) {
+            Thread.sleep(10);
+        }
+        sendQueue.setConnected(false);
+        assertEquals(total, sendQueue.getPiecesSent());
+    }
+
+    @Test
+    void reconnectingRequestsOnlyTheLostPiecesAgain() throws InterruptedException {
+        source.prefetch();
+        sendAndDrop(5);
+        //two of the five arrive before the drop, and a piece dealt afterwards is requested
+        source.receivePiece(1);
+        source.receivePiece(2);
+        source.nextPiece();
+        assertEquals(1, sendQueue.getDepth());
+
+        //the other three are lost, the queued request is kept
+        source.reconnected();
+        assertEquals(1 + 3, sendQueue.getDepth());
+        assertEquals(NetworkPieceSource.PREFETCH, source.getPiecesAhead());
+
+        //the kept request is answered, then the connection drops again with three unanswered
+        sendAndDrop(9);
+        source.receivePiece(3);
+        source.reconnected();
+        assertEquals(3, sendQueue.getDepth());
+        assertEquals(NetworkPieceSource.PREFETCH, source.getPiecesAhead());
+
+        //nothing was sent since, so nothing more is lost
+        source.reconnected();
+        assertEquals(3, sendQueue.getDepth());
+        assertEquals(NetworkPieceSource.PREFETCH, source.getPiecesAhead());
+    }
+
+    @Test
+    void piecesRequestedBeforeTheSourceDoNotCount() throws InterruptedException {
+        sendQueue.send("PIECE");
+        sendQueue.send("PIECE");
+        sendAndDrop(2);
+        var later = new NetworkPieceSource(sendQueue, clock::get);
+        later.prefetch();
+        later.reconnected();
+        assertEquals(NetworkPieceSource.PREFETCH, sendQueue.getDepth());
+        assertEquals(NetworkPieceSource.PREFETCH, later.getPiecesAhead());
+    }
+}
@@ -0,0 +1,124 @@
+package uk.ac.soton.comp1206.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.util.Pair;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.network.ServerMessage.ChannelsMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ChatMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ErrorMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.HiscoresMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.HostMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.JoinMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.NickMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.OtherMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PartedMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.PieceMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.ScoresMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.StartMsg;
+import uk.ac.soton.comp1206.network.ServerMessage.UsersMsg;
+
+/**
+ * Checks MessageDecoder parses every kind of server message, and rejects malformed ones
+ */
+class MessageDecoderTest {
+
+    @Test
+    void decodesPiece() {
+        assertEquals(new PieceMsg(7), MessageDecoder.decode("PIECE 7"));
+        assertEquals(new PieceMsg(14), MessageDecoder.decode("PIECE 14 "));
+    }
+
+    @Test
+    void decodesScores() {
+        var message = (ScoresMsg) MessageDecoder.decode("SCORES alice:120:3\nbob:0:DEAD");
+        var players = message.players();
+        assertEquals(2, players.size());
+        assertEquals("alice", players.get(0).get0());
+        assertEquals("3", players.get(0).get1());
+        assertEquals(120, players.get(0).get2());
+        assertEquals("bob", players.get(1).get0());
+        assertEquals("DEAD", players.get(1).get1());
+        assertEquals(0, players.get(1).get2());
+    }
+
+    @Test
+    void decodesChannelsAndUsersSkippingEmptyLines() {
+        assertEquals(new ChannelsMsg(List.of("game one", "game2")), MessageDecoder.decode("CHANNELS game one\n\ngame2\n"));
+        assertEquals(new UsersMsg(List.of("alice", "bob")), MessageDecoder.decode("USERS alice\nbob"));
+        assertEquals(new UsersMsg(List.of()), MessageDecoder.decode("USERS"));
+    }
+
+    @Test
+    void decodesHiscores() {
+        var message = (HiscoresMsg) MessageDecoder.decode("HISCORES alice:900\nbob:12");
+        assertEquals(List.of(new Pair<>("alice", 900), new Pair<>("bob", 12)), message.scores());
+        assertEquals(new HiscoresMsg(List.of()), MessageDecoder.decode("HISCORES "));
+    }
+
+    @Test
+    void decodesChatKeepingColonsAndSpacesInTheText() {
+        assertEquals(new ChatMsg("alice", "hi: there  you"), MessageDecoder.decode("MSG alice:hi: there  you"));
+        assertEquals(new ChatMsg("", "no sender"), MessageDecoder.decode("MSG no sender"));
+    }
+
+    @Test
+    void decodesNick() {
+        assertEquals(new NickMsg(null, "alice"), MessageDecoder.decode("NICK alice"));
+        assertEquals(new NickMsg("alice", "bob"), MessageDecoder.decode("NICK alice:bob"));
+    }
+
+    @Test
+    void decodesSimpleMessages() {
+        assertEquals(new JoinMsg("my game"), MessageDecoder.decode("JOIN my game"));
+        assertEquals(new ErrorMsg("Name taken"), MessageDecoder.decode("ERROR Name taken"));
+        assertEquals(new HostMsg(), MessageDecoder.decode("HOST"));
+        assertEquals(new StartMsg(), MessageDecoder.decode("START"));
+        assertEquals(new PartedMsg(), MessageDecoder.decode("PARTED"));
+    }
+
+    @Test
+    void decodesUnknownCommands() {
+        assertEquals(new OtherMsg("QUIT", ""), MessageDecoder.decode("QUIT"));
+        assertEquals(new OtherMsg("NEW", "thing here"), MessageDecoder.decode("NEW thing here"));
+        assertEquals(new OtherMsg("", ""), MessageDecoder.decode(""));
+    }
+
+    @Test
+    void rejectsMalformedMessages() {
+        assertNull(MessageDecoder.decode("PIECE"));
+        assertNull(MessageDecoder.decode("PIECE x"));
+        assertNull(MessageDecoder.decode("SCORES alice:12"));
+        assertNull(MessageDecoder.decode("SCORES alice\nbob:1:2"));
+        assertNull(MessageDecoder.decode("SCORES alice:lots:3"));
+        assertNull(MessageDecoder.decode("HISCORES alice"));
+        assertNull(MessageDecoder.decode("HISCORES alice:\nbob:3"));
+    }
+
+    @Test
+    void listsCannotBeChangedBySubscribers() {
+        var names = new ArrayList<>(List.of("alice"));
+        var message = new UsersMsg(names);
+        names.add("bob");
+        assertEquals(List.of("alice"), message.users());
+        assertThrows(UnsupportedOperationException.class, () -> message.users().add("eve"));
+
+        var scores = (ScoresMsg) MessageDecoder.decode("SCORES alice:1:3");
+        assertThrows(UnsupportedOperationException.class, () -> scores.players().clear());
+        var channels = (ChannelsMsg) MessageDecoder.decode("CHANNELS one");
+        assertThrows(UnsupportedOperationException.class, () -> channels.channels().remove(0));
+        var hiscores = (HiscoresMsg) MessageDecoder.decode("HISCORES a:1");
+        assertThrows(UnsupportedOperationException.class, () -> hiscores.scores().set(0, null));
+    }
+
+    @Test
+    void decodesToTheRightRecordType() {
+        assertInstanceOf(ScoresMsg.class, MessageDecoder.decode("SCORES "));
+        assertInstanceOf(ChannelsMsg.class, MessageDecoder.decode("CHANNELS"));
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.soton.comp1206.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks which messages SendQueue coalesces or drops, and the order it writes them in. The queue
+ * is left disconnected while messages are queued, so nothing is written until the test says so.
+ */
+class SendQueueTest {
+
+    /**
+     * The messages written by the queue
+     */
+    private final LinkedBlockingQueue<String> written = new LinkedBlockingQueue<>();
+
+    private final SendQueue queue = new SendQueue(written::add);
+
+    /**
+     * Connect the queue and collect the given number of written messages
+     * @param count the number of messages expected
+     * @return the messages, in the order they were written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private List<String> flush(int count) throws InterruptedException {
+        queue.setConnected(true);
+        var messages = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            var message = written.poll(5, TimeUnit.SECONDS);
+            if (message == null) break;
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    void coalescesPollsUntilTheirReply() throws InterruptedException {
+        queue.send("SCORES");
+        queue.send("SCORES");
+        queue.send("USERS");
+        queue.received("SCORES alice:10:3");
+        queue.send("SCORES");
+        assertEquals(1, queue.getCoalesced());
+        assertEquals(List.of("SCORES", "USERS", "SCORES"), flush(3));
+    }
+
+    @Test
+    void neverDropsGameMessagesWhenFull() throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            queue.send("PIECE");
+        }
+        queue.send("DIE");
+        queue.send("SCORES");
+        assertEquals(301, queue.getDepth());
+        assertEquals(1, queue.getDropped());
+        assertEquals(301 - 256, queue.getOverflowed());
+
+        var messages = flush(301);
+        assertEquals(301, messages.size());
+        assertEquals("DIE", messages.get(300));
+    }
+
+    @Test
+    void droppedPollCanBeAskedAgain() throws InterruptedException {
+        for (int i = 0; i < 256; i++) {
+            queue.send("MSG " + i);
+        }
+        queue.send("USERS");
+        assertEquals(1, queue.getDropped());
+        flush(256);
+        queue.send("USERS");
+        assertEquals(List.of("USERS"), flush(1));
+    }
+
+    @Test
+    void sendFirstGoesAheadWithoutDroppingAnything() throws InterruptedException {
+        for (int i = 0; i < 256; i++) {
+            queue.send("PIECE");
+        }
+        queue.sendFirst("NICK bob", "JOIN game");
+        assertEquals(258, queue.getDepth());
+        assertEquals(0, queue.getDropped());
+
+        var messages = flush(258);
+        assertEquals(List.of("NICK bob", "JOIN game"), messages.subList(0, 2));
+        assertEquals(258, messages.size());
+    }
+
+    @Test
+    void disconnectDropsOnlyQueuedPolls() throws InterruptedException {
+        queue.send("PIECE");
+        queue.send("SCORES");
+        queue.send("LIVES 2");
+        queue.setConnected(false);
+        assertEquals(2, queue.getDepth());
+        queue.send("SCORES");
+        assertEquals(List.of("PIECE", "LIVES 2", "SCORES"), flush(3));
+    }
+
+    @Test
+    void countsOnlyPiecesSentBeforeTheDisconnect() throws InterruptedException {
+        queue.send("PIECE");
+        queue.send("PIECE");
+        queue.send("LIVES 3");
+        queue.send("PIECE");
+        assertEquals(4, flush(4).size());
+
+        queue.setConnected(false);
+        queue.send("PIECE");
+        queue.send("PIECE");
+        queue.setConnected(false);
+        assertEquals(3, queue.getPiecesSentBeforeDisconnect());
+        assertEquals(List.of("PIECE", "PIECE"), flush(2), "queued requests are kept for the reconnect");
+        assertEquals(5, queue.getPiecesSent());
+    }
+}